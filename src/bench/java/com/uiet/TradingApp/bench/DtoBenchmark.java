@@ -0,0 +1,86 @@
+package com.uiet.TradingApp.bench;
+
+import com.uiet.TradingApp.DTO.StockDTO;
+import com.uiet.TradingApp.DTO.TradeDTO;
+import com.uiet.TradingApp.engine.MarketState;
+import com.uiet.TradingApp.engine.MarketState.Quote;
+import com.uiet.TradingApp.engine.SessionStats;
+import com.uiet.TradingApp.entity.Company;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.entity.Trade;
+import com.uiet.TradingApp.entity.User;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import com.uiet.TradingApp.service.StockService;
+import com.uiet.TradingApp.service.TradeService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DtoBenchmark {
+  private TradeService tradeService;
+  private StockService stockService;
+  private Trade trade;
+  private Stock stock;
+  private StockRef stockRef;
+  private MarketState marketState;
+
+  @Setup
+  public void setUp() {
+    tradeService = new TradeService(null, null, null, null, null, null);
+    stockService = new StockService(null, null, null, null);
+
+    Company company = new Company();
+    company.setName("Acme");
+    company.setSector("Tech");
+    company.setStocks(new ArrayList<>());
+    stock = new Stock();
+    stock.setId(1L);
+    stock.setSymbol("ACM");
+    stock.setCompany(company);
+    stock.setPriceScale(2);
+    stock.setOpenPrice(new BigDecimal("100.00"));
+    stock.setCurrentPrice(new BigDecimal("101.25"));
+    stock.setHighPrice(new BigDecimal("102.00"));
+    stock.setLowPrice(new BigDecimal("99.50"));
+    stock.setClosePrice(new BigDecimal("100.00"));
+    stock.setTradedVolume(12345L);
+    stockRef = new StockRef(1L, "ACM", 2, 1L, "Acme", "Tech", 1000L);
+    marketState = new MarketState(
+        1L, 2,
+        new Quote(10125L, 10000L, 10200L, 9950L, 10000L, LocalDateTime.now()),
+        new SessionStats(12345L, 124993125L, 321L));
+
+    User buyer = new User();
+    buyer.setUserName("buyer");
+    User seller = new User();
+    seller.setUserName("seller");
+    trade = tradeService.newTrade(buyer, seller, stock, 10L,
+                                  new BigDecimal("101.25"));
+    trade.setTimestamp(LocalDateTime.now());
+  }
+
+  @Benchmark
+  public TradeDTO tradeToDto() {
+    return tradeService.convertToDTO(trade);
+  }
+
+  @Benchmark
+  public StockDTO stockToDto() {
+    return stockService.dtoBuilder(stockRef, marketState);
+  }
+}
@@ -0,0 +1,135 @@
+package com.uiet.TradingApp.bench;
+
+import com.uiet.TradingApp.engine.JournalRecord;
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import com.uiet.TradingApp.entity.Order;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.entity.User;
+import com.uiet.TradingApp.service.JournalService;
+import com.uiet.TradingApp.service.MarketDepthService;
+import com.uiet.TradingApp.service.MarketStateService;
+import com.uiet.TradingApp.service.MatchingMetrics;
+import com.uiet.TradingApp.service.OrderBookService;
+import com.uiet.TradingApp.service.OrderMatchingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+// OrderMatchingService against a resident book of `depth` ask levels. The
+// journal is replaced by an in-memory sequencer so only matching is measured.
+// Every benchmark puts back what it takes, so the book depth stays fixed.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MatchingBenchmark {
+  private static final long BASE_PRICE = 10000L;
+  private static final long LOT = 10L;
+
+  @Param({"1", "10", "100", "1000"}) private int depth;
+
+  private OrderMatchingService matcher;
+  private Stock stock;
+  private User buyer;
+  private User seller;
+  private long nextOrderId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    OrderBookService books = new OrderBookService(null);
+    JournalService journal = new JournalService() {
+      @Override
+      public JournalRecord append(JournalRecord record) {
+        return record;
+      }
+    };
+    SimpMessagingTemplate messaging =
+        new SimpMessagingTemplate((message, timeout) -> true);
+    messaging.setMessageConverter(new MappingJackson2MessageConverter());
+    MarketDepthService depthFeed =
+        new MarketDepthService(books, null, messaging);
+    ReflectionTestUtils.setField(depthFeed, "queueSize", 65536);
+    depthFeed.start();
+    matcher = new OrderMatchingService(
+        books, journal,
+        new MatchingMetrics(new SimpleMeterRegistry(), books), depthFeed,
+        new MarketStateService(null, null, null));
+
+    stock = new Stock();
+    stock.setId(1L);
+    stock.setSymbol("ACM");
+    stock.setPriceScale(2);
+    buyer = new User();
+    buyer.setId(1L);
+    seller = new User();
+    seller.setId(2L);
+
+    for (int level = 0; level < depth; level++) {
+      for (int i = 0; i < 4; i++) {
+        matcher.sellOrderMatcher(order(seller, OrderType.SELL,
+                                       BASE_PRICE + level, LOT));
+      }
+      matcher.buyOrderMatcher(order(buyer, OrderType.BUY,
+                                    BASE_PRICE - 1 - level, LOT));
+    }
+  }
+
+  // Taker fully fills the oldest order at the best ask, a maker replaces it
+  @Benchmark
+  public Order fullFillAtTopOfBook() {
+    Order taker = order(buyer, OrderType.BUY, BASE_PRICE, LOT);
+    matcher.buyOrderMatcher(taker);
+    matcher.sellOrderMatcher(order(seller, OrderType.SELL, BASE_PRICE, LOT));
+    return taker;
+  }
+
+  // Odd-sized takers leave partially filled makers behind on every match
+  @Benchmark
+  public Order partialFills() {
+    Order taker = order(buyer, OrderType.BUY, BASE_PRICE, 3L);
+    matcher.buyOrderMatcher(taker);
+    matcher.sellOrderMatcher(order(seller, OrderType.SELL, BASE_PRICE, 3L));
+    return taker;
+  }
+
+  // Taker sweeps the whole ask side, then the levels are put back
+  @Benchmark
+  public Order sweepAllLevels() {
+    Order taker = order(buyer, OrderType.BUY, BASE_PRICE + depth,
+                        LOT * 4 * depth);
+    matcher.buyOrderMatcher(taker);
+    for (int level = 0; level < depth; level++) {
+      matcher.sellOrderMatcher(order(seller, OrderType.SELL,
+                                     BASE_PRICE + level, LOT * 4));
+    }
+    return taker;
+  }
+
+  private Order order(User user, OrderType type, long priceTicks, long qty) {
+    return Order.builder()
+        .id(++nextOrderId)
+        .user(user)
+        .stock(stock)
+        .type(type)
+        .status(OrderStatus.PENDING)
+        .price(BigDecimal.valueOf(priceTicks, 2))
+        .quantity(qty)
+        .build();
+  }
+}
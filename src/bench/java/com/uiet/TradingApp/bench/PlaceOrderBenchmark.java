@@ -0,0 +1,136 @@
+package com.uiet.TradingApp.bench;
+
+import com.uiet.TradingApp.DTO.NewStock;
+import com.uiet.TradingApp.TradingAppApplication;
+import com.uiet.TradingApp.entity.Company;
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import com.uiet.TradingApp.entity.Order;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.entity.User;
+import com.uiet.TradingApp.repository.UserRepository;
+import com.uiet.TradingApp.service.CompanyService;
+import com.uiet.TradingApp.service.OrderService;
+import com.uiet.TradingApp.service.StockService;
+import com.uiet.TradingApp.service.UserService;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+// OrderService.placeBuyOrder -> buyOrderMatcher against an in-memory H2
+// database, with a resting sell deep enough never to run out. The journal
+// projector and settlement run in the background as they do in production.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PlaceOrderBenchmark {
+  private ConfigurableApplicationContext context;
+  private OrderService orderService;
+  private Path journalDir;
+  private Stock stock;
+  private User buyer;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    journalDir = Files.createTempDirectory("bench-journal");
+    context =
+        new SpringApplicationBuilder(TradingAppApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "jwt.secret=0123456789abcdef0123456789abcdef0123456789abcdef",
+                "spring.mail.host=localhost", "spring.mail.username=bench",
+                "verification.path=/public/verification",
+                "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "journal.path=" + journalDir)
+            .run();
+    orderService = context.getBean(OrderService.class);
+    UserService userService = context.getBean(UserService.class);
+    CompanyService companyService = context.getBean(CompanyService.class);
+    StockService stockService = context.getBean(StockService.class);
+
+    Company company = new Company();
+    company.setName("Acme");
+    company.setTickerSymbol("ACM");
+    company.setSector("Tech");
+    company.setStocks(new ArrayList<>());
+    companyService.newEntry(company);
+    stock = stockService.createStockAndUpdate(
+        new NewStock("ACM", new BigDecimal("100"), 1_000_000_000L,
+                     company.getId(), null),
+        company);
+    companyService.saveEntry(company);
+    companyService.addStocksToCompanyUser(company, stock);
+
+    User newUser = new User();
+    newUser.setUserName("bench-buyer");
+    newUser.setPassword("bench");
+    newUser.setEmail("bench@localhost");
+    newUser.setRole(new ArrayList<>(List.of("USER")));
+    userService.createUser(newUser);
+    buyer = context.getBean(UserRepository.class)
+                .findByUserName("bench-buyer")
+                .orElseThrow();
+    userService.addBalance(buyer, new BigDecimal("1000000000000"));
+
+    orderService.submitSellOrder(
+        order(company.getUser(), OrderType.SELL, 1_000_000_000L));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+    FileSystemUtils.deleteRecursively(journalDir.toFile());
+  }
+
+  @Benchmark
+  public Order placeBuyOrder() {
+    Order order = order(buyer, OrderType.BUY, 1L);
+    orderService.placeBuyOrder(order);
+    return order;
+  }
+
+  // Same order through the per-stock sequencer, as the controller sends it
+  @Benchmark
+  public Order submitBuyOrder() {
+    Order order = order(buyer, OrderType.BUY, 1L);
+    orderService.submitBuyOrder(order);
+    return order;
+  }
+
+  private Order order(User user, OrderType type, long quantity) {
+    return Order.builder()
+        .user(user)
+        .stock(stock)
+        .type(type)
+        .status(OrderStatus.PENDING)
+        .price(new BigDecimal("100"))
+        .quantity(quantity)
+        .timestamp(LocalDateTime.now())
+        .build();
+  }
+}
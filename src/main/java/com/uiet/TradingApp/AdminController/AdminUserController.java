@@ -1,8 +1,6 @@
 package com.uiet.TradingApp.AdminController;
 
 import com.uiet.TradingApp.DTO.ApiResponse;
-import com.uiet.TradingApp.entity.User;
-import com.uiet.TradingApp.repository.UserRepository;
 import com.uiet.TradingApp.service.UserService;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
@@ -19,7 +17,6 @@ import org.springframework.web.bind.annotation.RestController;
 public class AdminUserController {
 
   private final UserService userService;
-  private final UserRepository userRepository;
 
   @GetMapping("/check")
   public ResponseEntity<ApiResponse<Void>> checkAdmin() {
@@ -31,12 +28,11 @@ public class AdminUserController {
   public ResponseEntity<ApiResponse<Void>>
   makeUserAdmin(@PathVariable String username) {
     try {
-      User user = userRepository.findByUserName(username).orElseThrow(
-          () -> new Exception("Username not found"));
-      List<String> roles = user.getRole();
-      roles.add("ADMIN");
-      user.setRole(roles);
-      userService.saveUser(user);
+      userService.modifyUser(username, user -> {
+        List<String> roles = user.getRole();
+        roles.add("ADMIN");
+        user.setRole(roles);
+      });
       return new ResponseEntity<>(
           new ApiResponse<>("User " + username + " is now admin"),
           HttpStatus.CREATED);
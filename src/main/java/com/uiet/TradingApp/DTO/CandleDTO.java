@@ -0,0 +1,22 @@
+package com.uiet.TradingApp.DTO;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CandleDTO {
+  // Bucket start in epoch millis (UTC)
+  private long time;
+  private BigDecimal open;
+  private BigDecimal high;
+  private BigDecimal low;
+  private BigDecimal close;
+  private long volume;
+  private int trades;
+}
@@ -0,0 +1,16 @@
+package com.uiet.TradingApp.DTO;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Aggregated price level; a quantity of 0 in a delta means the level is gone
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DepthLevel {
+  private BigDecimal price;
+  private Long quantity;
+  private Integer orders;
+}
@@ -0,0 +1,19 @@
+package com.uiet.TradingApp.DTO;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DepthUpdate {
+  private String symbol;
+  private Long sequence;
+  private boolean snapshot;
+  private List<DepthLevel> bids;
+  private List<DepthLevel> asks;
+}
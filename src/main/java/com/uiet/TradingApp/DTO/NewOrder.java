@@ -1,6 +1,7 @@
 package com.uiet.TradingApp.DTO;
 
 import com.uiet.TradingApp.entity.Enum.OrderType;
+import com.uiet.TradingApp.entity.Enum.TimeInForce;
 import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,4 +16,6 @@ public class NewOrder {
   private BigDecimal price;
   private OrderType type;
   private String username;
+  // GTC when not given
+  private TimeInForce timeInForce;
 }
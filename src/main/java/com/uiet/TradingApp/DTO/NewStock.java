@@ -13,4 +13,5 @@ public class NewStock {
   private BigDecimal openPrice;
   private Long totalStocks;
   private Long companyId;
+  private Integer priceScale;
 }
@@ -0,0 +1,25 @@
+package com.uiet.TradingApp.DTO;
+
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderDTO {
+  private Long id;
+  private String stockSymbol;
+  private OrderType type;
+  private OrderStatus status;
+  private BigDecimal price;
+  // Quantity still open, zero once filled
+  private Long quantity;
+  private LocalDateTime timestamp;
+}
@@ -0,0 +1,21 @@
+package com.uiet.TradingApp.DTO;
+
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderResult {
+  private Long orderId;
+  private String stockSymbol;
+  private OrderType type;
+  private OrderStatus status;
+  private Long remainingQuantity;
+  private String error;
+}
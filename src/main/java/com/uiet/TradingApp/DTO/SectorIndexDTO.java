@@ -0,0 +1,22 @@
+package com.uiet.TradingApp.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Sector indices start at 1000 when the valuation layer loads
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SectorIndexDTO {
+  private String sector;
+  private BigDecimal capWeighted;
+  private BigDecimal equalWeighted;
+  private BigDecimal marketCap;
+  private int constituents;
+  private LocalDateTime timestamp;
+}
@@ -22,4 +22,7 @@ public class StockDTO {
   private BigDecimal highPrice;
   private BigDecimal lowPrice;
   private Long tradedVolume;
+  private BigDecimal turnover;
+  private Long trades;
+  private BigDecimal vwap;
 }
@@ -0,0 +1,16 @@
+package com.uiet.TradingApp.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StockSuggestion {
+  private String symbol;
+  private String companyName;
+  private String sector;
+}
@@ -0,0 +1,25 @@
+package com.uiet.TradingApp.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Conflated view of the trades on a symbol since the previous tick
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+public class TickerDTO {
+  @JsonIgnore private Long stockId;
+  private String symbol;
+  private BigDecimal lastPrice;
+  private BigDecimal highPrice;
+  private BigDecimal lowPrice;
+  private Long quantity;
+  private Integer trades;
+  private LocalDateTime timestamp;
+}
@@ -0,0 +1,17 @@
+package com.uiet.TradingApp.DTO;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TradeHistoryPage {
+  private List<TradeDTO> trades;
+  // Null on the last page
+  private String nextCursor;
+}
@@ -0,0 +1,20 @@
+package com.uiet.TradingApp.DTO;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UnsettledTrade {
+  private Long id;
+  private Long buyerId;
+  private Long sellerId;
+  private Long stockId;
+  private Long quantity;
+  private BigDecimal price;
+  private boolean sentBalance;
+  private boolean sentStocks;
+}
@@ -0,0 +1,46 @@
+package com.uiet.TradingApp.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Sequence ids leave Hibernate free to batch inserts. Ordering the statements
+// keeps each batch on one table, and on PostgreSQL the driver rewrites a batch
+// of inserts into multi-row statements.
+@Configuration
+@Slf4j
+public class JpaBatchConfig {
+
+  @Bean
+  public HibernatePropertiesCustomizer
+  batchingCustomizer(@Value("${jpa.batch-size:50}") int batchSize) {
+    return (Map<String, Object> properties) -> {
+      properties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+      properties.putIfAbsent("hibernate.order_inserts", true);
+      properties.putIfAbsent("hibernate.order_updates", true);
+      properties.putIfAbsent("hibernate.jdbc.batch_versioned_data", true);
+    };
+  }
+
+  @Bean
+  public static BeanPostProcessor batchedInsertRewriter() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessBeforeInitialization(Object bean,
+                                                    String beanName) {
+        if (bean instanceof HikariDataSource dataSource &&
+            dataSource.getJdbcUrl() != null &&
+            dataSource.getJdbcUrl().startsWith("jdbc:postgresql:")) {
+          dataSource.addDataSourceProperty("reWriteBatchedInserts", "true");
+          log.info("INFO: Enabled batched insert rewriting");
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -52,6 +52,10 @@ public class SpringSecurity {
                    .hasAnyAuthority(isUser, isCompany, isAdmin)
                    .requestMatchers("/portfolio/new-portfolio")
                    .hasAnyAuthority(isAdmin, isCompany)
+                   .requestMatchers("/actuator/health")
+                   .permitAll()
+                   .requestMatchers("/actuator/**")
+                   .hasAuthority(isAdmin)
                    .anyRequest()
                    .permitAll());
     httpSecurity.sessionManagement(
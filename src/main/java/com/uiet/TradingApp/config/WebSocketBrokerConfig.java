@@ -0,0 +1,38 @@
+package com.uiet.TradingApp.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator.OverflowStrategy;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+// Stands in for @EnableWebSocketMessageBroker so each session's outbound
+// buffer drops its oldest frames when a subscriber falls behind, instead of
+// closing the session. Market data is sequenced or conflated, so a client
+// that lost frames resyncs rather than being disconnected.
+@Configuration
+public class WebSocketBrokerConfig
+    extends DelegatingWebSocketMessageBrokerConfiguration {
+
+  @Bean
+  @Override
+  public WebSocketHandler
+  subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                              AbstractSubscribableChannel clientOutboundChannel) {
+    SubProtocolWebSocketHandler handler = new SubProtocolWebSocketHandler(
+        clientInboundChannel, clientOutboundChannel) {
+      @Override
+      protected WebSocketSession decorateSession(WebSocketSession session) {
+        return new ConcurrentWebSocketSessionDecorator(
+            session, getSendTimeLimit(), getSendBufferSizeLimit(),
+            OverflowStrategy.DROP);
+      }
+    };
+    handler.setPhase(getPhase());
+    return handler;
+  }
+}
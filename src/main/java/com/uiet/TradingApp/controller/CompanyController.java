@@ -28,12 +28,10 @@ public class CompanyController {
 
   @GetMapping("/all")
   public ResponseEntity<ApiResponse<List<CompanyDTO>>> getAllCompanies() {
-    List<Company> companies = companyService.getAllCompanies();
-    if (companies.isEmpty()) {
+    List<CompanyDTO> companiesDTO = companyService.getAllCompanyDTOs();
+    if (companiesDTO.isEmpty()) {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     } else {
-      List<CompanyDTO> companiesDTO =
-          companies.stream().map(this::convertToDTO).toList();
       return new ResponseEntity<>(new ApiResponse<>(companiesDTO),
                                   HttpStatus.OK);
     }
@@ -45,7 +43,8 @@ public class CompanyController {
     Optional<Company> company = companyService.findById(id);
     if (company.isPresent()) {
       return new ResponseEntity<>(
-          new ApiResponse<>(convertToDTO(company.get())), HttpStatus.OK);
+          new ApiResponse<>(companyService.convertToDTO(company.get())),
+          HttpStatus.OK);
     } else {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
@@ -57,7 +56,8 @@ public class CompanyController {
     Optional<Company> company = companyService.getByName(companyName);
     if (company.isPresent()) {
       return new ResponseEntity<>(
-          new ApiResponse<>(convertToDTO(company.get())), HttpStatus.OK);
+          new ApiResponse<>(companyService.convertToDTO(company.get())),
+          HttpStatus.OK);
     } else {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
@@ -75,13 +75,4 @@ public class CompanyController {
     }
     return new ResponseEntity<>(new ApiResponse<>(company), HttpStatus.OK);
   }
-
-  private CompanyDTO convertToDTO(Company company) {
-    CompanyDTO dto = new CompanyDTO();
-    dto.setName(company.getName());
-    dto.setTickerSymbol(company.getTickerSymbol());
-    dto.setSector(company.getSector());
-    dto.setMarketCap(company.getMarketCap());
-    return dto;
-  }
 }
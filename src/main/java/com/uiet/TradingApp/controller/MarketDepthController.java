@@ -0,0 +1,30 @@
+package com.uiet.TradingApp.controller;
+
+import com.uiet.TradingApp.DTO.DepthUpdate;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.service.MarketDepthService;
+import com.uiet.TradingApp.service.ReferenceDataService;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+// Clients subscribe to /topic/depth/{symbol} first and buffer its deltas, then
+// subscribe to /app/depth/{symbol} for a one-off snapshot and drop buffered
+// deltas at or below the snapshot's sequence
+@Controller
+@RequiredArgsConstructor
+public class MarketDepthController {
+  private final MarketDepthService marketDepthService;
+  private final ReferenceDataService referenceDataService;
+
+  @SubscribeMapping("/depth/{symbol}")
+  public DepthUpdate depthSnapshot(@DestinationVariable String symbol) {
+    Stock stock =
+        referenceDataService.getBySymbol(symbol)
+            .map(StockRef::toStock)
+            .orElseThrow(() -> new RuntimeException("Stock not found"));
+    return marketDepthService.snapshot(stock);
+  }
+}
@@ -2,13 +2,21 @@ package com.uiet.TradingApp.controller;
 
 import com.uiet.TradingApp.DTO.ApiResponse;
 import com.uiet.TradingApp.DTO.NewOrder;
+import com.uiet.TradingApp.DTO.OrderDTO;
+import com.uiet.TradingApp.DTO.OrderPage;
+import com.uiet.TradingApp.DTO.OrderResult;
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
 import com.uiet.TradingApp.entity.Order;
 import com.uiet.TradingApp.repository.OrderRepository;
+import com.uiet.TradingApp.service.OrderHistoryService;
 import com.uiet.TradingApp.service.OrderService;
+import com.uiet.TradingApp.service.UserService;
 import com.uiet.TradingApp.utils.JwtUtil;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,17 +26,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/order")
 @RequiredArgsConstructor
 public class OrderController {
-  // TODO: add from time search
   private final OrderService orderService;
+  private final OrderHistoryService orderHistoryService;
+  private final UserService userService;
   private final OrderRepository orderRepository;
   private final JwtUtil jwtUtil;
   private static final String ERROR_STRING = "ERROR: ";
+  private static final int MAX_PAGE_SIZE = 500;
 
   @PostMapping("/buy-order")
   public ResponseEntity<ApiResponse<Void>>
@@ -39,7 +50,7 @@ public class OrderController {
     newOrder.setUsername(username);
     Order order = orderService.createOrder(newOrder);
     try {
-      orderService.placeBuyOrder(order);
+      orderService.submitBuyOrder(order);
       return new ResponseEntity<>(HttpStatus.CREATED);
     } catch (Exception e) {
       return new ResponseEntity<>(new ApiResponse<>(ERROR_STRING + e),
@@ -53,7 +64,7 @@ public class OrderController {
   sellOrder(@RequestBody NewOrder newOrder) {
     Order order = orderService.createOrder(newOrder);
     try {
-      orderService.placeSellOrder(order);
+      orderService.submitSellOrder(order);
       return new ResponseEntity<>(HttpStatus.CREATED);
     } catch (Exception e) {
       return new ResponseEntity<>(new ApiResponse<>(ERROR_STRING + e),
@@ -61,6 +72,22 @@ public class OrderController {
     }
   }
 
+  @PostMapping("/batch")
+  public ResponseEntity<ApiResponse<List<OrderResult>>>
+  batchOrder(@RequestBody List<NewOrder> newOrders,
+             @RequestHeader("Authorization") String authHeader) {
+    try {
+      authHeader = authHeader.substring(7);
+      String username = jwtUtil.extractUsername(authHeader);
+      return new ResponseEntity<>(
+          new ApiResponse<>(orderService.submitBatch(username, newOrders)),
+          HttpStatus.CREATED);
+    } catch (Exception e) {
+      return new ResponseEntity<>(new ApiResponse<>(ERROR_STRING + e),
+                                  HttpStatus.BAD_REQUEST);
+    }
+  }
+
   @DeleteMapping("/cancel-order/{orderId}")
   public ResponseEntity<ApiResponse<Void>>
   cancelOrder(@PathVariable Long orderId) {
@@ -69,7 +96,7 @@ public class OrderController {
       if (!order.isPresent()) {
         throw new RuntimeException("Order not found");
       } else {
-        orderService.cancelOrder(order.get());
+        orderService.submitCancelOrder(order.get());
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
       }
     } catch (Exception e) {
@@ -78,16 +105,26 @@ public class OrderController {
     }
   }
 
+  // Pass the returned nextCursor back to get the following page
   @GetMapping("/userId/{userId}")
-  public ResponseEntity<ApiResponse<List<Order>>>
-  findOrdersByUserId(@PathVariable Long userId) {
+  public ResponseEntity<ApiResponse<OrderPage>> findOrdersByUserId(
+      @PathVariable Long userId,
+      @RequestParam(required = false) String symbol,
+      @RequestParam(required = false) OrderStatus status,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int size) {
 
     try {
-      List<Order> order = orderRepository.findByUser_id(userId);
-      if (order.isEmpty()) {
+      OrderPage page = orderHistoryService.getOrders(
+          userId, symbol, status, from, to, cursor, pageSize(size));
+      if (page.getOrders().isEmpty() && cursor == null) {
         throw new RuntimeException("Order not found/User Id is incorrect");
       }
-      return ResponseEntity.ok(new ApiResponse<>(order));
+      return ResponseEntity.ok(new ApiResponse<>(page));
     } catch (Exception e) {
       return ResponseEntity.status(HttpStatus.NOT_FOUND)
           .body(new ApiResponse<>(ERROR_STRING + e));
@@ -95,16 +132,26 @@ public class OrderController {
   }
 
   @GetMapping("/userName/{userName}")
-  public ResponseEntity<ApiResponse<List<Order>>>
-  findOrdersByUserName(@PathVariable String userName) {
+  public ResponseEntity<ApiResponse<OrderPage>> findOrdersByUserName(
+      @PathVariable String userName,
+      @RequestParam(required = false) String symbol,
+      @RequestParam(required = false) OrderStatus status,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int size) {
 
     try {
-      List<Order> order = orderRepository.findByUser_UserName(userName);
-      if (order.isEmpty()) {
+      OrderPage page = orderHistoryService.getOrders(
+          userService.getUserIdFromUsername(userName), symbol, status, from,
+          to, cursor, pageSize(size));
+      if (page.getOrders().isEmpty() && cursor == null) {
         throw new RuntimeException(
             "Order not found/User UserName is incorrect");
       }
-      return ResponseEntity.ok(new ApiResponse<>(order));
+      return ResponseEntity.ok(new ApiResponse<>(page));
     } catch (Exception e) {
       return ResponseEntity.status(HttpStatus.NOT_FOUND)
           .body(new ApiResponse<>(ERROR_STRING + e));
@@ -112,16 +159,46 @@ public class OrderController {
   }
 
   @GetMapping("/all")
-  public ResponseEntity<ApiResponse<List<Order>>>
-  getAllOrders(@RequestHeader("Authorization") String authHeader) {
+  public ResponseEntity<ApiResponse<OrderPage>> getAllOrders(
+      @RequestHeader("Authorization") String authHeader,
+      @RequestParam(required = false) String symbol,
+      @RequestParam(required = false) OrderStatus status,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int size) {
+    try {
+      authHeader = authHeader.substring(7);
+      String username = jwtUtil.extractUsername(authHeader);
+      return ResponseEntity.ok(new ApiResponse<>(orderHistoryService.getOrders(
+          userService.getUserIdFromUsername(username), symbol, status, from,
+          to, cursor, pageSize(size))));
+    } catch (Exception e) {
+      return new ResponseEntity<>(new ApiResponse<>("Exception: " + e),
+                                  HttpStatus.FORBIDDEN);
+    }
+  }
+
+  // Served from the resident books, no database query
+  @GetMapping("/open")
+  public ResponseEntity<ApiResponse<List<OrderDTO>>>
+  getOpenOrders(@RequestHeader("Authorization") String authHeader,
+                @RequestParam(required = false) String symbol) {
     try {
       authHeader = authHeader.substring(7);
       String username = jwtUtil.extractUsername(authHeader);
-      return ResponseEntity.ok(
-          new ApiResponse<>(orderRepository.findByUser_UserName(username)));
+      return ResponseEntity.ok(new ApiResponse<>(
+          orderHistoryService.getOpenOrders(
+              userService.getUserIdFromUsername(username), symbol)));
     } catch (Exception e) {
       return new ResponseEntity<>(new ApiResponse<>("Exception: " + e),
                                   HttpStatus.FORBIDDEN);
     }
   }
+
+  private static int pageSize(int size) {
+    return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+  }
 }
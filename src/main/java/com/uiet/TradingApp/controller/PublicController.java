@@ -124,10 +124,11 @@ public class PublicController {
         }
         String verificationToken =
             jwtUtil.generateEmailVerificationToken(user.getEmail());
-        user.setVerificationToken(verificationToken);
         emailService.sendVerificationEmail(user.getEmail(), verificationToken,
                                            baseUrl);
-        userService.saveUser(user);
+        userService.modifyUser(
+            user.getUserName(),
+            fresh -> fresh.setVerificationToken(verificationToken));
         return ResponseEntity.ok(new ApiResponse<>("Verification email sent!"));
       } catch (Exception e) {
         log.error("Error in verifyEmail: ", e);
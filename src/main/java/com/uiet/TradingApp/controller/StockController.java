@@ -1,13 +1,21 @@
 package com.uiet.TradingApp.controller;
 
 import com.uiet.TradingApp.DTO.ApiResponse;
+import com.uiet.TradingApp.DTO.CandleDTO;
+import com.uiet.TradingApp.DTO.SectorIndexDTO;
 import com.uiet.TradingApp.DTO.StockDTO;
-import com.uiet.TradingApp.entity.Stock;
-import com.uiet.TradingApp.repository.StockRepository;
+import com.uiet.TradingApp.DTO.StockSuggestion;
+import com.uiet.TradingApp.engine.CandleInterval;
+import com.uiet.TradingApp.service.CandleService;
+import com.uiet.TradingApp.service.ReferenceDataService;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
 import com.uiet.TradingApp.service.StockService;
+import com.uiet.TradingApp.service.ValuationService;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,34 +25,97 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 // TODO: create stocks admin controller
-// TODO: LATER add pagination to searches to improve performance in case of high
-// number of stocks
 @RestController
 @RequestMapping("/stock")
 @RequiredArgsConstructor
 public class StockController {
   private final StockService stockService;
-  private final StockRepository stockRepository;
+  private final ReferenceDataService referenceDataService;
+  private final CandleService candleService;
+  private final ValuationService valuationService;
+
+  private static final int MAX_PAGE_SIZE = 200;
+  private static final int MAX_SUGGESTIONS = 20;
+  private static final int MAX_CANDLES = 1000;
 
   @GetMapping("/{id}")
   public ResponseEntity<ApiResponse<StockDTO>>
   getStockById(@PathVariable Long id) {
-    Optional<Stock> stock = stockRepository.findById(id);
-    if (!stock.isPresent()) {
+    Optional<StockDTO> stockDTO =
+        referenceDataService.getById(id)
+            .flatMap(ref -> stockService.getStockDTOBySymbol(ref.getSymbol()));
+    if (stockDTO.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    return new ResponseEntity<>(new ApiResponse<>(stockDTO.get()),
+                                HttpStatus.OK);
+  }
+
+  @GetMapping("/symbol/{symbol}")
+  public ResponseEntity<ApiResponse<StockDTO>>
+  getStockBySymbol(@PathVariable String symbol) {
+    Optional<StockDTO> stockDTO = stockService.getStockDTOBySymbol(symbol);
+    if (stockDTO.isEmpty()) {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
-    StockDTO stockDTO = stockService.dtoBuilder(stock.get());
-    return new ResponseEntity<>(new ApiResponse<>(stockDTO), HttpStatus.OK);
+    return new ResponseEntity<>(new ApiResponse<>(stockDTO.get()),
+                                HttpStatus.OK);
   }
 
   @GetMapping("/search")
   public ResponseEntity<ApiResponse<List<StockDTO>>>
   searchStocks(@RequestParam(required = false) String name,
-               @RequestParam(required = false) String sector) {
-    List<StockDTO> stocks = stockService.searchStocks(name, sector);
+               @RequestParam(required = false) String sector,
+               @RequestParam(defaultValue = "0") int page,
+               @RequestParam(defaultValue = "50") int size) {
+    List<StockDTO> stocks = stockService.searchStocks(
+        name, sector, Math.max(page, 0),
+        Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
     if (stocks.isEmpty()) {
       return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
     return new ResponseEntity<>(new ApiResponse<>(stocks), HttpStatus.OK);
   }
+
+  // Typeahead, answered from the in-memory index alone
+  @GetMapping("/suggest")
+  public ResponseEntity<ApiResponse<List<StockSuggestion>>>
+  suggestStocks(@RequestParam String q,
+                @RequestParam(defaultValue = "10") int limit) {
+    List<StockSuggestion> suggestions = stockService.suggestStocks(
+        q, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+    return new ResponseEntity<>(new ApiResponse<>(suggestions), HttpStatus.OK);
+  }
+
+  // The latest `limit` bars opening in [from, to), oldest first
+  @GetMapping("/symbol/{symbol}/candles")
+  public ResponseEntity<ApiResponse<List<CandleDTO>>> getCandles(
+      @PathVariable String symbol,
+      @RequestParam(defaultValue = "1m") String interval,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "500") int limit) {
+    Optional<StockRef> stock = referenceDataService.getBySymbol(symbol);
+    if (stock.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    try {
+      List<CandleDTO> candles = candleService.getCandles(
+          stock.get(), CandleInterval.of(interval), from, to,
+          Math.min(Math.max(limit, 1), MAX_CANDLES));
+      return new ResponseEntity<>(new ApiResponse<>(candles), HttpStatus.OK);
+    } catch (Exception e) {
+      return new ResponseEntity<>(new ApiResponse<>(e.getMessage()),
+                                  HttpStatus.BAD_REQUEST);
+    }
+  }
+
+  // Current sector indices; /topic/indices carries the changes
+  @GetMapping("/indices")
+  public ResponseEntity<ApiResponse<List<SectorIndexDTO>>> getIndices() {
+    return new ResponseEntity<>(
+        new ApiResponse<>(valuationService.getIndices()), HttpStatus.OK);
+  }
 }
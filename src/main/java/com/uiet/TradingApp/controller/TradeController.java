@@ -1,39 +1,97 @@
 package com.uiet.TradingApp.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.uiet.TradingApp.DTO.ApiResponse;
-import com.uiet.TradingApp.DTO.TradeDTO;
-import com.uiet.TradingApp.service.TradeService;
+import com.uiet.TradingApp.DTO.TradeHistoryPage;
+import com.uiet.TradingApp.service.TradeHistoryService;
+import com.uiet.TradingApp.service.TradeHistoryService.ExportFormat;
 import com.uiet.TradingApp.utils.JwtUtil;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Locale;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RequiredArgsConstructor
 @Slf4j
 @RestController
 @RequestMapping("/trade")
 public class TradeController {
+  private static final int MAX_PAGE_SIZE = 500;
+
   private final JwtUtil jwtUtil;
-  private final TradeService tradeService;
+  private final TradeHistoryService tradeHistoryService;
+  private final ObjectMapper objectMapper;
 
+  // Pass the returned nextCursor back to get the following page
   @GetMapping("/history")
-  public ResponseEntity<ApiResponse<List<TradeDTO>>>
-  getUserTradeHistory(@RequestHeader("Authorization") String authHeader) {
+  public ResponseEntity<ApiResponse<TradeHistoryPage>> getUserTradeHistory(
+      @RequestHeader("Authorization") String authHeader,
+      @RequestParam(required = false) String symbol,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int size) {
     try {
       String token = authHeader.substring(7);
       String username = jwtUtil.extractUsername(token);
-      List<TradeDTO> trades = tradeService.getTradesForUser(username);
-      return ResponseEntity.ok(new ApiResponse<>(trades));
+      TradeHistoryPage page = tradeHistoryService.getHistory(
+          username, symbol, from, to, cursor,
+          Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+      return ResponseEntity.ok(new ApiResponse<>(page));
     } catch (Exception e) {
       log.error("Error fetching trade history", e);
       return ResponseEntity.status(HttpStatus.BAD_REQUEST)
           .body(new ApiResponse<>("Error fetching history: " + e.getMessage()));
     }
   }
+
+  // Full history streamed as it is read, as JSON or CSV
+  @GetMapping("/history/export")
+  public ResponseEntity<StreamingResponseBody> exportUserTradeHistory(
+      @RequestHeader("Authorization") String authHeader,
+      @RequestParam(defaultValue = "json") String format,
+      @RequestParam(required = false) String symbol,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam(required = false) @DateTimeFormat(
+          iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+    String username = jwtUtil.extractUsername(authHeader.substring(7));
+    ExportFormat exportFormat;
+    try {
+      exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      log.error("ERROR: Unknown export format {}", format);
+      ApiResponse<Void> error =
+          new ApiResponse<>("Unknown export format: " + format);
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(out -> objectMapper.writeValue(out, error));
+    }
+    MediaType contentType = exportFormat == ExportFormat.CSV
+                                ? new MediaType("text", "csv")
+                                : MediaType.APPLICATION_JSON;
+    String fileName =
+        "trades." + exportFormat.name().toLowerCase(Locale.ROOT);
+    StreamingResponseBody body = out
+        -> tradeHistoryService.export(username, symbol, from, to,
+                                      exportFormat, out);
+    return ResponseEntity.ok()
+        .contentType(contentType)
+        .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=" + fileName)
+        .body(body);
+  }
 }
@@ -111,7 +111,7 @@ public class UserController {
   public ResponseEntity<ApiResponse<Void>>
   logout(@RequestHeader("Authorization") String authHeader) {
     try {
-      tempService.newEntry(authHeader);
+      tempService.newEntry(authHeader.substring(7));
       log.info("logged out {}", authHeader);
       return ResponseEntity.status(HttpStatus.OK)
           .body(new ApiResponse<>("Logout successful"));
@@ -0,0 +1,32 @@
+package com.uiet.TradingApp.engine;
+
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Resident view of an open order; the orders table stays the durable record.
+// The price is in ticks of the stock's price scale.
+@Data
+@AllArgsConstructor
+public class BookOrder {
+  private long orderId;
+  private long userId;
+  private long stockId;
+  private OrderType type;
+  private long price;
+  private long quantity;
+
+  // Used by the rebuild query. Rows written before tick sizes existed are
+  // rounded towards the passive side so they never cross at a better price.
+  public BookOrder(Long orderId, Long userId, Long stockId, OrderType type,
+                   BigDecimal price, Integer priceScale, Long quantity) {
+    this(orderId, userId, stockId, type,
+         PriceTicks.toTicks(
+             price,
+             priceScale == null ? PriceTicks.DEFAULT_SCALE : priceScale,
+             type == OrderType.BUY ? RoundingMode.FLOOR : RoundingMode.CEILING),
+         quantity);
+  }
+}
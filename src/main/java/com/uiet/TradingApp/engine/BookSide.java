@@ -0,0 +1,104 @@
+package com.uiet.TradingApp.engine;
+
+import java.util.Arrays;
+
+// One side of a book as a sorted array of levels with the best level last, so
+// consuming the top of book is a decrement and lookups are a binary search on
+// primitive prices.
+public class BookSide {
+  private final boolean bids;
+  private long[] prices = new long[16];
+  private PriceLevel[] levels = new PriceLevel[16];
+  private int size;
+  // Prices whose level changed since the last clearChanged, for depth deltas
+  private long[] changed = new long[8];
+  private int changedCount;
+
+  public BookSide(boolean bids) { this.bids = bids; }
+
+  public PriceLevel best() { return size == 0 ? null : levels[size - 1]; }
+
+  // Level at depth 0 (best) to size() - 1
+  public PriceLevel level(int depth) { return levels[size - 1 - depth]; }
+
+  public int size() { return size; }
+
+  public PriceLevel get(long price) {
+    int index = indexOf(price);
+    return index >= 0 ? levels[index] : null;
+  }
+
+  public PriceLevel getOrCreate(long price) {
+    int index = indexOf(price);
+    if (index >= 0) {
+      return levels[index];
+    }
+    int insertAt = -index - 1;
+    if (size == prices.length) {
+      prices = Arrays.copyOf(prices, size * 2);
+      levels = Arrays.copyOf(levels, size * 2);
+    }
+    System.arraycopy(prices, insertAt, prices, insertAt + 1, size - insertAt);
+    System.arraycopy(levels, insertAt, levels, insertAt + 1, size - insertAt);
+    PriceLevel level = new PriceLevel(price);
+    prices[insertAt] = price;
+    levels[insertAt] = level;
+    size++;
+    return level;
+  }
+
+  public void remove(long price) {
+    int index = indexOf(price);
+    if (index < 0) {
+      return;
+    }
+    System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+    System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+    levels[--size] = null;
+  }
+
+  public void clear() {
+    Arrays.fill(levels, 0, size, null);
+    size = 0;
+    changedCount = 0;
+  }
+
+  // A handful of levels change per action, so a linear scan beats hashing
+  public void markChanged(long price) {
+    for (int i = 0; i < changedCount; i++) {
+      if (changed[i] == price) {
+        return;
+      }
+    }
+    if (changedCount == changed.length) {
+      changed = Arrays.copyOf(changed, changedCount * 2);
+    }
+    changed[changedCount++] = price;
+  }
+
+  public int changedCount() { return changedCount; }
+
+  public long changedPrice(int index) { return changed[index]; }
+
+  public void clearChanged() { changedCount = 0; }
+
+  // Bids are stored ascending and asks descending so the best price is last
+  private int indexOf(long price) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long midPrice = prices[mid];
+      int cmp = bids ? Long.compare(midPrice, price)
+                     : Long.compare(price, midPrice);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+}
@@ -0,0 +1,15 @@
+package com.uiet.TradingApp.engine;
+
+import lombok.Value;
+
+// One OHLCV bar with prices in ticks; time is the bucket start in epoch millis
+@Value
+public class CandleBar {
+  long openTime;
+  long open;
+  long high;
+  long low;
+  long close;
+  long volume;
+  int trades;
+}
@@ -0,0 +1,42 @@
+package com.uiet.TradingApp.engine;
+
+import java.util.concurrent.TimeUnit;
+
+// Bar sizes kept per symbol. Buckets are aligned to the epoch in UTC, so a
+// day bar opens at 00:00 UTC. One-second bars are only kept in memory.
+public enum CandleInterval {
+  S1("1s", TimeUnit.SECONDS.toMillis(1), false),
+  M1("1m", TimeUnit.MINUTES.toMillis(1), true),
+  M5("5m", TimeUnit.MINUTES.toMillis(5), true),
+  H1("1h", TimeUnit.HOURS.toMillis(1), true),
+  D1("1d", TimeUnit.DAYS.toMillis(1), true);
+
+  private final String code;
+  private final long millis;
+  private final boolean persisted;
+
+  CandleInterval(String code, long millis, boolean persisted) {
+    this.code = code;
+    this.millis = millis;
+    this.persisted = persisted;
+  }
+
+  public String getCode() { return code; }
+
+  public long getMillis() { return millis; }
+
+  public boolean isPersisted() { return persisted; }
+
+  public long bucketOf(long timeMillis) {
+    return Math.floorDiv(timeMillis, millis) * millis;
+  }
+
+  public static CandleInterval of(String code) {
+    for (CandleInterval interval : values()) {
+      if (interval.code.equals(code)) {
+        return interval;
+      }
+    }
+    throw new RuntimeException("Unknown candle interval " + code);
+  }
+}
@@ -0,0 +1,149 @@
+package com.uiet.TradingApp.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The most recent bars of one symbol and interval in a ring buffer of
+// parallel arrays. Trades fold into the open bar; one in a later bucket opens
+// a new bar and the oldest falls off once the ring is full. A trade stamped
+// before the open bar is folded into it, timestamps only step back when the
+// clock does. Bars changed since the last drain are marked dirty, and bars up
+// to the newest one known to have a row are reported as stored.
+public class CandleSeries {
+  private final CandleInterval interval;
+  private final long[] openTimes;
+  private final long[] opens;
+  private final long[] highs;
+  private final long[] lows;
+  private final long[] closes;
+  private final long[] volumes;
+  private final int[] trades;
+  private final boolean[] dirty;
+  // Slot of the open bar, and how many slots hold bars
+  private int head = -1;
+  private int size;
+  private long storedThrough = Long.MIN_VALUE;
+
+  public CandleSeries(CandleInterval interval, int capacity) {
+    this.interval = interval;
+    openTimes = new long[capacity];
+    opens = new long[capacity];
+    highs = new long[capacity];
+    lows = new long[capacity];
+    closes = new long[capacity];
+    volumes = new long[capacity];
+    trades = new int[capacity];
+    dirty = new boolean[capacity];
+  }
+
+  public CandleInterval getInterval() { return interval; }
+
+  // Continues a bar read back from storage; it is not marked dirty
+  public synchronized void restore(CandleBar bar) {
+    if (size > 0 && bar.getOpenTime() <= openTimes[head]) {
+      return;
+    }
+    int slot = advance(bar.getOpenTime());
+    storedThrough = bar.getOpenTime();
+    opens[slot] = bar.getOpen();
+    highs[slot] = bar.getHigh();
+    lows[slot] = bar.getLow();
+    closes[slot] = bar.getClose();
+    volumes[slot] = bar.getVolume();
+    trades[slot] = bar.getTrades();
+  }
+
+  public synchronized void onTrade(long timeMillis, long price, long quantity) {
+    long bucket = interval.bucketOf(timeMillis);
+    if (size == 0 || bucket > openTimes[head]) {
+      int slot = advance(bucket);
+      opens[slot] = price;
+      highs[slot] = price;
+      lows[slot] = price;
+      closes[slot] = price;
+      volumes[slot] = quantity;
+      trades[slot] = 1;
+      dirty[slot] = true;
+      return;
+    }
+    highs[head] = Math.max(highs[head], price);
+    lows[head] = Math.min(lows[head], price);
+    closes[head] = price;
+    volumes[head] += quantity;
+    trades[head]++;
+    dirty[head] = true;
+  }
+
+  // Bars with from <= openTime < to, oldest first
+  public synchronized List<CandleBar> range(long from, long to) {
+    List<CandleBar> bars = new ArrayList<>();
+    for (int i = size - 1; i >= 0; i--) {
+      int slot = slot(i);
+      if (openTimes[slot] >= from && openTimes[slot] < to) {
+        bars.add(bar(slot));
+      }
+    }
+    return bars;
+  }
+
+  // Oldest bar still held, or Long.MAX_VALUE when empty
+  public synchronized long earliest() {
+    return size == 0 ? Long.MAX_VALUE : openTimes[slot(size - 1)];
+  }
+
+  // Returns the dirty bars and clears their marks
+  public synchronized List<CandleBar> drainDirty() {
+    List<CandleBar> bars = new ArrayList<>();
+    for (int i = size - 1; i >= 0; i--) {
+      int slot = slot(i);
+      if (dirty[slot]) {
+        dirty[slot] = false;
+        bars.add(bar(slot));
+      }
+    }
+    return bars;
+  }
+
+  // Marks bars dirty again after a failed write, if they are still held
+  public synchronized void markDirty(List<CandleBar> bars) {
+    for (CandleBar bar : bars) {
+      for (int i = 0; i < size; i++) {
+        int slot = slot(i);
+        if (openTimes[slot] == bar.getOpenTime()) {
+          dirty[slot] = true;
+          break;
+        }
+      }
+    }
+  }
+
+  // Whether the bar already has a row, so writing it is an update
+  public synchronized boolean isStored(CandleBar bar) {
+    return bar.getOpenTime() <= storedThrough;
+  }
+
+  // Records a successful write; bars only open after the ones written
+  public synchronized void markStored(List<CandleBar> bars) {
+    for (CandleBar bar : bars) {
+      storedThrough = Math.max(storedThrough, bar.getOpenTime());
+    }
+  }
+
+  private int advance(long openTime) {
+    head = (head + 1) % openTimes.length;
+    size = Math.min(size + 1, openTimes.length);
+    openTimes[head] = openTime;
+    dirty[head] = false;
+    return head;
+  }
+
+  // The i-th bar back from the open one
+  private int slot(int i) {
+    return Math.floorMod(head - i, openTimes.length);
+  }
+
+  private CandleBar bar(int slot) {
+    return new CandleBar(openTimes[slot], opens[slot], highs[slot], lows[slot],
+                         closes[slot], volumes[slot], trades[slot]);
+  }
+}
@@ -0,0 +1,56 @@
+package com.uiet.TradingApp.engine;
+
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.Value;
+import lombok.experimental.NonFinal;
+
+// One fixed-size journal entry. Accepted and cancelled orders fill the buy or
+// sell slots according to their side; fills use both.
+@Value
+@AllArgsConstructor
+public class JournalRecord {
+  // Assigned by the journal as it appends, so appending copies nothing
+  @NonFinal @Setter(AccessLevel.PACKAGE) long sequence;
+  JournalRecordType type;
+  long timestamp;
+  long stockId;
+  long buyOrderId;
+  long sellOrderId;
+  long buyerId;
+  long sellerId;
+  long price;
+  long quantity;
+  long buyRemaining;
+  long sellRemaining;
+
+  public static JournalRecord accepted(BookOrder order, long timestamp) {
+    boolean buy = order.getType() == OrderType.BUY;
+    return new JournalRecord(
+        0L, JournalRecordType.ORDER_ACCEPTED, timestamp, order.getStockId(),
+        buy ? order.getOrderId() : 0L, buy ? 0L : order.getOrderId(),
+        buy ? order.getUserId() : 0L, buy ? 0L : order.getUserId(),
+        order.getPrice(), order.getQuantity(), buy ? order.getQuantity() : 0L,
+        buy ? 0L : order.getQuantity());
+  }
+
+  public static JournalRecord cancel(BookOrder order, long timestamp) {
+    boolean buy = order.getType() == OrderType.BUY;
+    return new JournalRecord(
+        0L, JournalRecordType.CANCEL, timestamp, order.getStockId(),
+        buy ? order.getOrderId() : 0L, buy ? 0L : order.getOrderId(),
+        buy ? order.getUserId() : 0L, buy ? 0L : order.getUserId(),
+        order.getPrice(), order.getQuantity(), 0L, 0L);
+  }
+
+  public static JournalRecord fill(BookOrder buy, BookOrder sell, long price,
+                                   long quantity, long timestamp) {
+    return new JournalRecord(0L, JournalRecordType.FILL, timestamp,
+                             buy.getStockId(), buy.getOrderId(),
+                             sell.getOrderId(), buy.getUserId(),
+                             sell.getUserId(), price, quantity,
+                             buy.getQuantity(), sell.getQuantity());
+  }
+}
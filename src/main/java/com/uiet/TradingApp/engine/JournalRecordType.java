@@ -0,0 +1,8 @@
+package com.uiet.TradingApp.engine;
+
+public enum JournalRecordType {
+  ORDER_ACCEPTED,
+  CANCEL,
+  FILL
+
+}
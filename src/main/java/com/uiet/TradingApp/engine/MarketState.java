@@ -0,0 +1,66 @@
+package com.uiet.TradingApp.engine;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Value;
+
+// Resident market fields of one stock, in ticks. Writers replace an immutable
+// quote under the monitor and readers take the current one without locking.
+// The dirty mark tells the flusher the stocks row is behind. Volume and
+// turnover are counted by the matching thread in the session stats.
+public class MarketState {
+  private final long stockId;
+  private final int scale;
+  private final SessionStats sessionStats;
+  private final AtomicBoolean dirty = new AtomicBoolean();
+  private volatile Quote quote;
+
+  @Value
+  public static class Quote {
+    long last;
+    long open;
+    long high;
+    long low;
+    // Null until the first session roll
+    Long close;
+    LocalDateTime lastUpdated;
+  }
+
+  public MarketState(long stockId, int scale, Quote quote,
+                     SessionStats sessionStats) {
+    this.stockId = stockId;
+    this.scale = scale;
+    this.quote = quote;
+    this.sessionStats = sessionStats;
+  }
+
+  public long getStockId() { return stockId; }
+
+  public int getScale() { return scale; }
+
+  public Quote getQuote() { return quote; }
+
+  public SessionStats getSessionStats() { return sessionStats; }
+
+  public synchronized void onTrade(long price, LocalDateTime time) {
+    Quote current = quote;
+    quote = new Quote(price, current.getOpen(),
+                      Math.max(current.getHigh(), price),
+                      Math.min(current.getLow(), price), current.getClose(),
+                      time);
+    dirty.set(true);
+  }
+
+  // Starts a new session from the last price: it becomes the close and the
+  // open, high and low until the first trade moves them
+  public synchronized void roll(LocalDateTime time) {
+    long last = quote.getLast();
+    quote = new Quote(last, last, last, last, last, time);
+    dirty.set(true);
+  }
+
+  // Clears the mark; the caller then writes the quote it reads afterwards
+  public boolean takeDirty() { return dirty.getAndSet(false); }
+
+  public void markDirty() { dirty.set(true); }
+}
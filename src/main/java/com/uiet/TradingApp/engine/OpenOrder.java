@@ -0,0 +1,22 @@
+package com.uiet.TradingApp.engine;
+
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.Value;
+import lombok.With;
+
+// Immutable copy of a resting order for readers outside the matching shard.
+// Each fill replaces the entry instead of mutating it.
+@Value
+public class OpenOrder {
+  long orderId;
+  long userId;
+  long stockId;
+  OrderType type;
+  @With OrderStatus status;
+  BigDecimal price;
+  @With long quantity;
+  LocalDateTime timestamp;
+}
@@ -0,0 +1,76 @@
+package com.uiet.TradingApp.engine;
+
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Open orders grouped by user. Written by the matching shards as orders rest,
+// fill and cancel, read by any thread.
+public class OpenOrderIndex {
+  private static final Comparator<OpenOrder> NEWEST_FIRST =
+      Comparator.comparing(OpenOrder::getTimestamp,
+                           Comparator.nullsLast(Comparator.reverseOrder()))
+          .thenComparing(Comparator.comparingLong(OpenOrder::getOrderId)
+                             .reversed());
+
+  private final Map<Long, Map<Long, OpenOrder>> byUser =
+      new ConcurrentHashMap<>();
+
+  public void put(OpenOrder order) {
+    // Inside compute so a concurrent remove cannot drop the map under us
+    byUser.compute(order.getUserId(), (id, orders) -> {
+      Map<Long, OpenOrder> result =
+          orders == null ? new ConcurrentHashMap<>() : orders;
+      result.put(order.getOrderId(), order);
+      return result;
+    });
+  }
+
+  public void fill(long userId, long orderId, long remaining) {
+    if (remaining == 0L) {
+      remove(userId, orderId);
+      return;
+    }
+    Map<Long, OpenOrder> orders = byUser.get(userId);
+    if (orders != null) {
+      orders.computeIfPresent(
+          orderId, (id, order)
+                       -> order.withQuantity(remaining).withStatus(
+                           OrderStatus.PARTIALLY_FILLED));
+    }
+  }
+
+  public OpenOrder remove(long userId, long orderId) {
+    OpenOrder[] removed = new OpenOrder[1];
+    byUser.computeIfPresent(userId, (id, orders) -> {
+      removed[0] = orders.remove(orderId);
+      return orders.isEmpty() ? null : orders;
+    });
+    return removed[0];
+  }
+
+  // Newest first; stockId null for every stock
+  public List<OpenOrder> forUser(long userId, Long stockId) {
+    Map<Long, OpenOrder> orders = byUser.get(userId);
+    if (orders == null) {
+      return List.of();
+    }
+    List<OpenOrder> result = new ArrayList<>(orders.size());
+    for (OpenOrder order : orders.values()) {
+      if (stockId == null || order.getStockId() == stockId) {
+        result.add(order);
+      }
+    }
+    result.sort(NEWEST_FIRST);
+    return result;
+  }
+
+  public int size() {
+    return byUser.values().stream().mapToInt(Map::size).sum();
+  }
+
+  public void clear() { byUser.clear(); }
+}
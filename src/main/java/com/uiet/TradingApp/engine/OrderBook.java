@@ -0,0 +1,96 @@
+package com.uiet.TradingApp.engine;
+
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Getter;
+
+// Price-time priority book for a single stock with prices in ticks. Each level
+// is a FIFO queue. Not thread safe, callers serialize access.
+public class OrderBook {
+  @Getter private final Long stockId;
+  private final BookSide bids = new BookSide(true);
+  private final BookSide asks = new BookSide(false);
+  private final Map<Long, BookOrder> ordersById = new HashMap<>();
+  // Bumped once per published depth delta so subscribers can detect gaps
+  @Getter private long depthSequence;
+
+  public OrderBook(Long stockId) { this.stockId = stockId; }
+
+  public void add(BookOrder order) {
+    if (ordersById.putIfAbsent(order.getOrderId(), order) != null) {
+      return;
+    }
+    BookSide side = sideOf(order.getType());
+    side.getOrCreate(order.getPrice()).add(order);
+    side.markChanged(order.getPrice());
+  }
+
+  // Best resting order on the given side that crosses the limit price
+  public BookOrder bestCrossing(OrderType restingSide, long limit) {
+    PriceLevel best = sideOf(restingSide).best();
+    if (best == null) {
+      return null;
+    }
+    boolean crosses = restingSide == OrderType.SELL ? best.getPrice() <= limit
+                                                    : best.getPrice() >= limit;
+    return crosses ? best.peek() : null;
+  }
+
+  public void fill(BookOrder order, long quantity) {
+    BookSide side = sideOf(order.getType());
+    PriceLevel level = side.get(order.getPrice());
+    level.fill(order, quantity);
+    side.markChanged(order.getPrice());
+    if (order.getQuantity() == 0L) {
+      ordersById.remove(order.getOrderId());
+    }
+    if (level.isEmpty()) {
+      side.remove(order.getPrice());
+    }
+  }
+
+  public BookOrder remove(Long orderId) {
+    BookOrder order = ordersById.remove(orderId);
+    if (order == null) {
+      return null;
+    }
+    BookSide side = sideOf(order.getType());
+    PriceLevel level = side.get(order.getPrice());
+    level.remove(order);
+    side.markChanged(order.getPrice());
+    if (level.isEmpty()) {
+      side.remove(order.getPrice());
+    }
+    return order;
+  }
+
+  public BookOrder get(Long orderId) { return ordersById.get(orderId); }
+
+  public BookSide getBids() { return bids; }
+
+  public BookSide getAsks() { return asks; }
+
+  public int size() { return ordersById.size(); }
+
+  public boolean hasDepthChanges() {
+    return bids.changedCount() > 0 || asks.changedCount() > 0;
+  }
+
+  // Called once the changed levels have been read off both sides
+  public long nextDepthSequence() {
+    bids.clearChanged();
+    asks.clearChanged();
+    return ++depthSequence;
+  }
+
+  public void clear() {
+    bids.clear();
+    asks.clear();
+    ordersById.clear();
+  }
+
+  private BookSide sideOf(OrderType type) {
+    return type == OrderType.BUY ? bids : asks;
+  }
+}
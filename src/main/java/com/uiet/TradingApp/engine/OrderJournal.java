@@ -0,0 +1,200 @@
+package com.uiet.TradingApp.engine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+// Append-only journal of fixed-size records in memory-mapped segment files.
+// Appends only copy into the mapping; force() is called by a flusher so many
+// appends share one fsync. A record becomes visible once its sequence is
+// written, which is the last field stored, so a torn write reads as the end.
+// Records are released to the durable consumer, in sequence order, only once
+// a force() has covered them, so nothing downstream runs ahead of the disk.
+@Slf4j
+public class OrderJournal implements AutoCloseable {
+  public static final int RECORD_SIZE = 96;
+  private static final JournalRecordType[] TYPES = JournalRecordType.values();
+
+  private final Path directory;
+  private final int recordsPerSegment;
+  private final Consumer<JournalRecord> durable;
+  private final Deque<JournalRecord> unforced = new ArrayDeque<>();
+  private MappedByteBuffer current;
+  private int position;
+  private long nextSequence = 1L;
+  private volatile long lastSequence;
+  private long forcedSequence;
+
+  public OrderJournal(Path directory, int segmentSizeBytes,
+                      Consumer<JournalRecord> durable) throws IOException {
+    this.directory = directory;
+    this.recordsPerSegment = segmentSizeBytes / RECORD_SIZE;
+    this.durable = durable;
+    Files.createDirectories(directory);
+  }
+
+  // Reads every record in order and positions the writer after the last one
+  public synchronized void replay(Consumer<JournalRecord> consumer)
+      throws IOException {
+    List<Path> segments = segments();
+    for (Path segment : segments) {
+      MappedByteBuffer buffer = map(segment);
+      int count = 0;
+      while (count < recordsPerSegment) {
+        JournalRecord record = read(buffer, count * RECORD_SIZE);
+        if (record == null) {
+          break;
+        }
+        consumer.accept(record);
+        nextSequence = record.getSequence() + 1;
+        count++;
+      }
+      current = buffer;
+      position = count;
+    }
+    lastSequence = nextSequence - 1;
+    forcedSequence = lastSequence;
+    log.info("INFO: Journal replayed {} records from {} segments",
+             lastSequence, segments.size());
+  }
+
+  // Continues numbering after the given sequence when the journal ends before
+  // it, so a sequence already projected is never handed out again
+  public synchronized void skipTo(long sequence) {
+    if (sequence >= nextSequence) {
+      nextSequence = sequence + 1;
+      lastSequence = sequence;
+      forcedSequence = sequence;
+    }
+  }
+
+  public synchronized JournalRecord append(JournalRecord record) {
+    if (current == null || position == recordsPerSegment) {
+      roll();
+    }
+    record.setSequence(nextSequence++);
+    write(current, position * RECORD_SIZE, record);
+    position++;
+    lastSequence = record.getSequence();
+    unforced.add(record);
+    return record;
+  }
+
+  public void force() {
+    MappedByteBuffer buffer;
+    long upTo;
+    synchronized (this) {
+      if (forcedSequence == lastSequence || current == null) {
+        return;
+      }
+      buffer = current;
+      upTo = lastSequence;
+    }
+    buffer.force();
+    synchronized (this) {
+      forcedSequence = Math.max(forcedSequence, upTo);
+      while (!unforced.isEmpty() &&
+             unforced.peek().getSequence() <= forcedSequence) {
+        durable.accept(unforced.poll());
+      }
+      notifyAll();
+    }
+  }
+
+  // Blocks until the sequence is on disk; false if the timeout ran out first
+  public synchronized boolean awaitForced(long sequence, long timeoutMillis)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+    while (forcedSequence < sequence) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0L) {
+        return false;
+      }
+      wait(remaining);
+    }
+    return true;
+  }
+
+  public long getLastSequence() { return lastSequence; }
+
+  @Override
+  public synchronized void close() {
+    if (current != null) {
+      current.force();
+    }
+  }
+
+  private void roll() {
+    try {
+      if (current != null) {
+        current.force();
+      }
+      Path segment =
+          directory.resolve(String.format("journal-%020d.dat", nextSequence));
+      current = map(segment);
+      position = 0;
+      log.info("INFO: Journal rolled to segment {}", segment.getFileName());
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to roll journal segment", e);
+    }
+  }
+
+  private MappedByteBuffer map(Path segment) throws IOException {
+    try (FileChannel channel =
+             FileChannel.open(segment, StandardOpenOption.CREATE,
+                              StandardOpenOption.READ,
+                              StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                         (long)recordsPerSegment * RECORD_SIZE);
+    }
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return new ArrayList<>(
+          files.filter(p -> p.getFileName().toString().startsWith("journal-"))
+              .sorted()
+              .toList());
+    }
+  }
+
+  private static void write(MappedByteBuffer buffer, int offset,
+                            JournalRecord record) {
+    buffer.putInt(offset + 8, record.getType().ordinal());
+    buffer.putLong(offset + 16, record.getTimestamp());
+    buffer.putLong(offset + 24, record.getStockId());
+    buffer.putLong(offset + 32, record.getBuyOrderId());
+    buffer.putLong(offset + 40, record.getSellOrderId());
+    buffer.putLong(offset + 48, record.getBuyerId());
+    buffer.putLong(offset + 56, record.getSellerId());
+    buffer.putLong(offset + 64, record.getPrice());
+    buffer.putLong(offset + 72, record.getQuantity());
+    buffer.putLong(offset + 80, record.getBuyRemaining());
+    buffer.putLong(offset + 88, record.getSellRemaining());
+    buffer.putLong(offset, record.getSequence());
+  }
+
+  private static JournalRecord read(MappedByteBuffer buffer, int offset) {
+    long sequence = buffer.getLong(offset);
+    if (sequence == 0L) {
+      return null;
+    }
+    return new JournalRecord(
+        sequence, TYPES[buffer.getInt(offset + 8)], buffer.getLong(offset + 16),
+        buffer.getLong(offset + 24), buffer.getLong(offset + 32),
+        buffer.getLong(offset + 40), buffer.getLong(offset + 48),
+        buffer.getLong(offset + 56), buffer.getLong(offset + 64),
+        buffer.getLong(offset + 72), buffer.getLong(offset + 80),
+        buffer.getLong(offset + 88));
+  }
+}
@@ -0,0 +1,45 @@
+package com.uiet.TradingApp.engine;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import lombok.Getter;
+
+@Getter
+public class PriceLevel {
+  private final long price;
+  private final ArrayDeque<BookOrder> orders = new ArrayDeque<>();
+  private long totalQuantity;
+
+  public PriceLevel(long price) { this.price = price; }
+
+  public void add(BookOrder order) {
+    orders.addLast(order);
+    totalQuantity += order.getQuantity();
+  }
+
+  public BookOrder peek() { return orders.peekFirst(); }
+
+  public void fill(BookOrder order, long quantity) {
+    order.setQuantity(order.getQuantity() - quantity);
+    totalQuantity -= quantity;
+    if (order.getQuantity() == 0L && orders.peekFirst() == order) {
+      orders.pollFirst();
+    } else if (order.getQuantity() == 0L) {
+      orders.remove(order);
+    }
+  }
+
+  public boolean remove(BookOrder order) {
+    Iterator<BookOrder> it = orders.iterator();
+    while (it.hasNext()) {
+      if (it.next() == order) {
+        it.remove();
+        totalQuantity -= order.getQuantity();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean isEmpty() { return orders.isEmpty(); }
+}
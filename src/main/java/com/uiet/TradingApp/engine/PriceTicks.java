@@ -0,0 +1,48 @@
+package com.uiet.TradingApp.engine;
+
+import com.uiet.TradingApp.entity.Stock;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Fixed-point prices: a price is a long count of ticks of 10^-scale. Only the
+// JPA/DTO boundary converts to and from BigDecimal.
+public final class PriceTicks {
+  public static final int DEFAULT_SCALE = 2;
+  public static final int MAX_SCALE = 4;
+
+  private PriceTicks() {}
+
+  public static int scaleOf(Stock stock) {
+    Integer scale = stock.getPriceScale();
+    return scale == null ? DEFAULT_SCALE : scale;
+  }
+
+  public static long toTicks(BigDecimal price, int scale) {
+    try {
+      return price.setScale(scale, RoundingMode.UNNECESSARY)
+          .unscaledValue()
+          .longValueExact();
+    } catch (ArithmeticException e) {
+      throw new RuntimeException("Price " + price.toPlainString() +
+                                 " is not a multiple of the tick size " +
+                                 toPrice(1L, scale).toPlainString());
+    }
+  }
+
+  public static long toTicks(BigDecimal price, int scale,
+                             RoundingMode roundingMode) {
+    return price.setScale(scale, roundingMode).unscaledValue().longValueExact();
+  }
+
+  public static BigDecimal toPrice(long ticks, int scale) {
+    return BigDecimal.valueOf(ticks, scale);
+  }
+
+  public static long notional(long ticks, long quantity) {
+    try {
+      return Math.multiplyExact(ticks, quantity);
+    } catch (ArithmeticException e) {
+      throw new RuntimeException("Order value is too large");
+    }
+  }
+}
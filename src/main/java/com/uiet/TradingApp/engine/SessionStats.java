@@ -0,0 +1,78 @@
+package com.uiet.TradingApp.engine;
+
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Value;
+
+// Session volume, turnover (in ticks times shares) and trade count of one
+// stock behind a seqlock. Only the stock's matching thread writes, without
+// locking or allocating; readers retry until they see the counters between
+// two writes, so they never block the writer.
+public class SessionStats {
+  // Odd while a write is in progress
+  private final AtomicLong sequence = new AtomicLong();
+  private long volume;
+  private long turnover;
+  private long trades;
+
+  @Value
+  public static class Snapshot {
+    long volume;
+    long turnover;
+    long trades;
+
+    // Volume weighted average price, null before the first trade
+    public BigDecimal vwap(int scale) {
+      if (volume == 0L) {
+        return null;
+      }
+      return PriceTicks.toPrice(turnover, scale)
+          .divide(BigDecimal.valueOf(volume), PriceTicks.MAX_SCALE,
+                  RoundingMode.HALF_EVEN);
+    }
+  }
+
+  public SessionStats(long volume, long turnover, long trades) {
+    this.volume = volume;
+    this.turnover = turnover;
+    this.trades = trades;
+  }
+
+  // Matching thread only
+  public void record(long price, long quantity) {
+    long current = sequence.getPlain();
+    sequence.setOpaque(current + 1);
+    VarHandle.storeStoreFence();
+    volume += quantity;
+    turnover += price * quantity;
+    trades++;
+    sequence.setRelease(current + 2);
+  }
+
+  // Matching thread only
+  public void reset() {
+    long current = sequence.getPlain();
+    sequence.setOpaque(current + 1);
+    VarHandle.storeStoreFence();
+    volume = 0L;
+    turnover = 0L;
+    trades = 0L;
+    sequence.setRelease(current + 2);
+  }
+
+  public Snapshot read() {
+    while (true) {
+      long before = sequence.getAcquire();
+      long readVolume = volume;
+      long readTurnover = turnover;
+      long readTrades = trades;
+      VarHandle.loadLoadFence();
+      if ((before & 1L) == 0L && sequence.getOpaque() == before) {
+        return new Snapshot(readVolume, readTurnover, readTrades);
+      }
+      Thread.onSpinWait();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.uiet.TradingApp.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Bounded lock-free ring with many producers and a single consumer. Each slot
+// carries a sequence number so producers claim slots with one CAS and the
+// consumer never contends with them.
+public class SubmissionRing<E> {
+  private final int mask;
+  private final AtomicReferenceArray<E> buffer;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  private long head;
+
+  public SubmissionRing(int capacity) {
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException(
+          "Ring capacity must be a power of two: " + capacity);
+    }
+    this.mask = capacity - 1;
+    this.buffer = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  // Returns false when the ring is full
+  public boolean offer(E element) {
+    long pos = tail.get();
+    while (true) {
+      int index = (int)(pos & mask);
+      long diff = sequences.getAcquire(index) - pos;
+      if (diff == 0L) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          buffer.setPlain(index, element);
+          sequences.setRelease(index, pos + 1);
+          return true;
+        }
+        pos = tail.get();
+      } else if (diff < 0L) {
+        return false;
+      } else {
+        pos = tail.get();
+      }
+    }
+  }
+
+  // Only called from the consumer thread
+  public E poll() {
+    int index = (int)(head & mask);
+    if (sequences.getAcquire(index) != head + 1) {
+      return null;
+    }
+    E element = buffer.getPlain(index);
+    buffer.setPlain(index, null);
+    sequences.setRelease(index, head + mask + 1);
+    head++;
+    return element;
+  }
+
+  public int capacity() { return mask + 1; }
+}
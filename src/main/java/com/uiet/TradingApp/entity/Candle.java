@@ -0,0 +1,69 @@
+package com.uiet.TradingApp.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+// Persisted OHLCV bar. Prices are stored in ticks of 10^-priceScale and the
+// primary key (stock, interval, open time) also serves the range reads.
+// The writer says which bars are new, so saving one never looks it up first.
+@Entity
+@Table(name = "candle")
+@IdClass(Candle.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Candle implements Persistable<Candle.Key> {
+
+  @Id
+  @Column(name = "stock_id")
+  private long stockId;
+
+  @Id
+  @Column(name = "bar_interval", length = 3)
+  private String interval;
+
+  // Bucket start in epoch millis
+  @Id
+  @Column(name = "open_time")
+  private long openTime;
+
+  @Column(nullable = false) private int priceScale;
+  @Column(nullable = false) private long open;
+  @Column(nullable = false) private long high;
+  @Column(nullable = false) private long low;
+  @Column(nullable = false) private long close;
+  @Column(nullable = false) private long volume;
+  @Column(nullable = false) private int trades;
+
+  @Transient private boolean newRow;
+
+  @Override
+  public Key getId() {
+    return new Key(stockId, interval, openTime);
+  }
+
+  @Override
+  public boolean isNew() {
+    return newRow;
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+    private long stockId;
+    private String interval;
+    private long openTime;
+  }
+}
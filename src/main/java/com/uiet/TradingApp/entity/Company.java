@@ -9,6 +9,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -24,7 +25,12 @@ import lombok.ToString;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Company {
-  @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE,
+                  generator = "companies_seq")
+  @SequenceGenerator(name = "companies_seq", sequenceName = "companies_seq",
+                     allocationSize = 50)
+  private Long id;
   @OneToOne(cascade = CascadeType.ALL)
   @JoinColumn(name = "user_id")
   private User user;
@@ -0,0 +1,9 @@
+package com.uiet.TradingApp.entity.Enum;
+
+// DAY orders are expired by the session roll, GTC orders rest until filled
+// or cancelled
+public enum TimeInForce {
+  DAY,
+  GTC
+
+}
@@ -0,0 +1,22 @@
+package com.uiet.TradingApp.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Last journal sequence projected into the JPA tables
+@Entity
+@Data
+@Table(name = "journal_checkpoint")
+@AllArgsConstructor
+@NoArgsConstructor
+public class JournalCheckpoint {
+  public static final Long ID = 1L;
+
+  @Id private Long id;
+  @Column(nullable = false) private long lastSequence;
+}
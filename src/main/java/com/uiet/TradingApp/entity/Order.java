@@ -2,6 +2,7 @@ package com.uiet.TradingApp.entity;
 
 import com.uiet.TradingApp.entity.Enum.OrderStatus;
 import com.uiet.TradingApp.entity.Enum.OrderType;
+import com.uiet.TradingApp.entity.Enum.TimeInForce;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -9,8 +10,10 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -24,9 +27,15 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "orders")
+@Table(name = "orders",
+       indexes = @Index(name = "idx_orders_user_time",
+                        columnList = "user_id, timestamp, id"))
 public class Order {
-  @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+  @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq",
+                     allocationSize = 50)
+  private Long id;
   @ManyToOne @JoinColumn(name = "user_id") private User user;
 
   @ManyToOne @JoinColumn(name = "stock_id") private Stock stock;
@@ -40,6 +49,9 @@ public class Order {
   @Column(nullable = false)
   private OrderStatus status;
 
+  // Null on orders placed before time in force existed, which act as GTC
+  @Enumerated(EnumType.STRING) private TimeInForce timeInForce;
+
   private LocalDateTime timestamp;
   private Long remainingQuantity;
 }
@@ -1,13 +1,16 @@
 package com.uiet.TradingApp.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,8 +25,14 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Portfolio {
 
-  @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
-  private Long quantity;
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE,
+                  generator = "portfolio_seq")
+  @SequenceGenerator(name = "portfolio_seq", sequenceName = "portfolio_seq",
+                     allocationSize = 50)
+  private Long id;
+  // Written only by the delta updates in PortfolioRepository
+  @Column(updatable = false) private Long quantity;
   private BigDecimal averagePricePaid;
   @JsonBackReference(value = "user-portfolio")
   @ManyToOne
@@ -33,4 +42,7 @@ public class Portfolio {
   @ManyToOne
   @JoinColumn(name = "stock_id")
   private Stock stock;
+  @Version
+  @Column(nullable = false, columnDefinition = "bigint default 0")
+  private long version;
 }
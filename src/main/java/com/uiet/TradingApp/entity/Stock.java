@@ -3,6 +3,7 @@ package com.uiet.TradingApp.entity;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -13,6 +14,7 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -31,7 +33,11 @@ import lombok.ToString;
 @AllArgsConstructor
 @ToString(exclude = {"company", "portfolio"})
 public class Stock {
-  @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stocks_seq")
+  @SequenceGenerator(name = "stocks_seq", sequenceName = "stocks_seq",
+                     allocationSize = 50)
+  private Long id;
 
   private BigDecimal totalPrice;
 
@@ -43,7 +49,13 @@ public class Stock {
   private BigDecimal highPrice;
   private BigDecimal lowPrice;
 
+  // Tick size is 10^-priceScale, null means PriceTicks.DEFAULT_SCALE
+  private Integer priceScale;
+
   private Long tradedVolume;
+  // Session value traded and fill count, for the volume weighted price
+  @Column(precision = 24, scale = 4) private BigDecimal turnover;
+  private Long tradeCount;
   private Long totalStocks;
   private LocalDateTime lastUpdated;
 
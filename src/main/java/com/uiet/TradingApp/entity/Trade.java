@@ -5,8 +5,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -16,15 +18,25 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "trade")
+@Table(name = "trade",
+       indexes =
+       {
+         @Index(name = "idx_trade_buyer_time",
+                columnList = "buyer_id, timestamp, id")
+         , @Index(name = "idx_trade_seller_time",
+                  columnList = "seller_id, timestamp, id")
+       })
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Trade {
 
+  // Ids are handed out 50 at a time so the fill inserts can be batched
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "trade_seq")
+  @SequenceGenerator(name = "trade_seq", sequenceName = "trade_seq",
+                     allocationSize = 50)
   private long id;
 
   @ManyToOne
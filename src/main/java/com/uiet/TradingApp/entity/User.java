@@ -10,7 +10,9 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,14 +26,20 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Table(name = "users")
 public class User {
-  @Id @GeneratedValue(strategy = GenerationType.IDENTITY) private Long id;
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+  @SequenceGenerator(name = "users_seq", sequenceName = "users_seq",
+                     allocationSize = 50)
+  private Long id;
   @Column(unique = true, nullable = false) private String userName;
   @Column(nullable = false) private String password;
   @Column(unique = true, nullable = false) private String email;
   @ElementCollection(fetch = FetchType.EAGER) private List<String> role;
   private LocalDateTime createadAt;
   private LocalDateTime lastActive;
-  private BigDecimal balance;
+  // Written only by the delta updates in UserRepository; saving the entity
+  // never carries a stale balance back
+  @Column(updatable = false) private BigDecimal balance;
   private String country;
   private String status; // Account is active , not logged in , suspended
   // EMAIL VERIFICATION
@@ -45,4 +53,8 @@ public class User {
   @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
   @JsonManagedReference(value = "user-portfolio")
   private List<Portfolio> portfolio;
+  // Concurrent saves of the same user fail instead of overwriting each other
+  @Version
+  @Column(nullable = false, columnDefinition = "bigint default 0")
+  private long version;
 }
@@ -1,8 +1,8 @@
 package com.uiet.TradingApp.filter;
 
+import com.uiet.TradingApp.service.PrincipalCache;
+import com.uiet.TradingApp.service.PrincipalCache.CachedPrincipal;
 import com.uiet.TradingApp.service.TempService;
-import com.uiet.TradingApp.utils.JwtUtil;
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -14,7 +14,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -24,8 +23,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 @RequiredArgsConstructor
 public class JwtFilter extends OncePerRequestFilter {
-  private final UserDetailsService userDetailsService;
-  private final JwtUtil jwtUtil;
+  private final PrincipalCache principalCache;
   private final TempService tempService;
 
   @Override
@@ -37,6 +35,7 @@ public class JwtFilter extends OncePerRequestFilter {
     String username = null;
     String jwt = null;
     Object purpose = null;
+    CachedPrincipal principal = null;
     String path = request.getServletPath();
     if (path.startsWith("/public/") || path.startsWith("/ws") ||
         path.startsWith("/js/") || path.startsWith("/css/") ||
@@ -57,8 +56,9 @@ public class JwtFilter extends OncePerRequestFilter {
         authorizationHeader.startsWith("Bearer ")) {
       try {
         jwt = authorizationHeader.substring(7).trim();
-        username = jwtUtil.extractUsername(jwt);
-        purpose = jwtUtil.extractClaimsForOtp(jwt);
+        principal = principalCache.resolve(jwt);
+        username = principal.getUsername();
+        purpose = principal.getClaims().get("purpose");
 
       } catch (Exception e) {
         log.error("Error in JWT filter {}", e);
@@ -79,17 +79,14 @@ public class JwtFilter extends OncePerRequestFilter {
       response.getWriter().write("Token is not valid for this endpoint");
       return;
     }
-    if (username != null) {
-      UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-      boolean validateToken = jwtUtil.validateToken(jwt);
-      if (validateToken) {
-        UsernamePasswordAuthenticationToken auth =
-            new UsernamePasswordAuthenticationToken(
-                userDetails, null, userDetails.getAuthorities());
-        auth.setDetails(
-            new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(auth);
-      }
+    if (principal != null) {
+      UserDetails userDetails = principal.getUserDetails();
+      UsernamePasswordAuthenticationToken auth =
+          new UsernamePasswordAuthenticationToken(userDetails, null,
+                                                  userDetails.getAuthorities());
+      auth.setDetails(
+          new WebAuthenticationDetailsSource().buildDetails(request));
+      SecurityContextHolder.getContext().setAuthentication(auth);
     }
     filterChain.doFilter(request, response);
   }
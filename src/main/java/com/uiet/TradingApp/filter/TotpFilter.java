@@ -1,7 +1,7 @@
 package com.uiet.TradingApp.filter;
 
-import com.uiet.TradingApp.service.TempService;
-import com.uiet.TradingApp.utils.JwtUtil;
+import com.uiet.TradingApp.service.PrincipalCache;
+import com.uiet.TradingApp.service.PrincipalCache.CachedPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,7 +12,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -22,8 +21,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @RequiredArgsConstructor
 public class TotpFilter extends OncePerRequestFilter {
 
-  private final UserDetailsService userDetailsService;
-  private final JwtUtil jwtUtil;
+  private final PrincipalCache principalCache;
 
   @Override
   protected void doFilterInternal(HttpServletRequest request,
@@ -32,11 +30,8 @@ public class TotpFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
 
     String authorizationHeader = request.getHeader("Authorization");
-    String username = null;
     String jwt = null;
-    Object claim = null;
-    String purpose = null;
-    String path = request.getServletPath();
+    CachedPrincipal principal = null;
     if (authorizationHeader == null ||
         !authorizationHeader.startsWith("Bearer ")) {
       filterChain.doFilter(request, response);
@@ -46,23 +41,20 @@ public class TotpFilter extends OncePerRequestFilter {
         authorizationHeader.startsWith("Bearer ")) {
       try {
         jwt = authorizationHeader.substring(7).trim();
-        username = jwtUtil.extractUsername(jwt);
+        principal = principalCache.resolve(jwt);
       } catch (Exception e) {
         log.error("Error in JWT filter {}", e);
       }
     }
 
-    if (username != null) {
-      UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-      boolean validateToken = jwtUtil.validateToken(jwt);
-      if (validateToken) {
-        UsernamePasswordAuthenticationToken auth =
-            new UsernamePasswordAuthenticationToken(
-                userDetails, null, userDetails.getAuthorities());
-        auth.setDetails(
-            new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(auth);
-      }
+    if (principal != null) {
+      UserDetails userDetails = principal.getUserDetails();
+      UsernamePasswordAuthenticationToken auth =
+          new UsernamePasswordAuthenticationToken(userDetails, null,
+                                                  userDetails.getAuthorities());
+      auth.setDetails(
+          new WebAuthenticationDetailsSource().buildDetails(request));
+      SecurityContextHolder.getContext().setAuthentication(auth);
     }
     filterChain.doFilter(request, response);
   }
@@ -0,0 +1,36 @@
+package com.uiet.TradingApp.repository;
+
+import com.uiet.TradingApp.entity.Candle;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CandleRepository extends JpaRepository<Candle, Candle.Key> {
+  // Newest first, so a page holds the latest bars of the range
+  @Query("SELECT c FROM Candle c WHERE c.stockId = :stockId "
+         + "AND c.interval = :interval AND c.openTime >= :from "
+         + "AND c.openTime < :to ORDER BY c.openTime DESC")
+  List<Candle>
+  findRange(@Param("stockId") long stockId,
+            @Param("interval") String interval, @Param("from") long from,
+            @Param("to") long to, Pageable pageable);
+
+  Optional<Candle> findFirstByStockIdAndIntervalOrderByOpenTimeDesc(
+      long stockId, String interval);
+
+  // The open price and scale of a bar never change once it is written
+  @Modifying
+  @Query("UPDATE Candle c SET c.high = :high, c.low = :low, "
+         + "c.close = :close, c.volume = :volume, c.trades = :trades "
+         + "WHERE c.stockId = :stockId AND c.interval = :interval "
+         + "AND c.openTime = :openTime")
+  int updateBar(@Param("stockId") long stockId,
+                @Param("interval") String interval,
+                @Param("openTime") long openTime, @Param("high") long high,
+                @Param("low") long low, @Param("close") long close,
+                @Param("volume") long volume, @Param("trades") int trades);
+}
@@ -1,9 +1,13 @@
 package com.uiet.TradingApp.repository;
 
 import com.uiet.TradingApp.entity.Company;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface CompanyRepository extends JpaRepository<Company, Long> {
   public Optional<Company> findByTickerSymbol(String tickerSymbol);
@@ -11,4 +15,9 @@ public interface CompanyRepository extends JpaRepository<Company, Long> {
   public Optional<Company> findByName(String name);
 
   public List<Company> findBySector(String sector);
+
+  @Modifying
+  @Query("UPDATE Company c SET c.marketCap = :marketCap WHERE c.id = :id")
+  int updateMarketCap(@Param("id") Long id,
+                      @Param("marketCap") BigDecimal marketCap);
 }
@@ -0,0 +1,7 @@
+package com.uiet.TradingApp.repository;
+
+import com.uiet.TradingApp.entity.JournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JournalCheckpointRepository
+    extends JpaRepository<JournalCheckpoint, Long> {}
@@ -1,30 +1,79 @@
 package com.uiet.TradingApp.repository;
 
+import com.uiet.TradingApp.DTO.OrderDTO;
+import com.uiet.TradingApp.engine.BookOrder;
+import com.uiet.TradingApp.engine.OpenOrder;
 import com.uiet.TradingApp.entity.Enum.OrderStatus;
-import com.uiet.TradingApp.entity.Enum.OrderType;
+import com.uiet.TradingApp.entity.Enum.TimeInForce;
 import com.uiet.TradingApp.entity.Order;
-import com.uiet.TradingApp.entity.Stock;
 import com.uiet.TradingApp.entity.User;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+  // Keyset condition: strictly after the cursor in descending key order
+  String HISTORY_QUERY =
+      "SELECT new com.uiet.TradingApp.DTO.OrderDTO(o.id, s.symbol, o.type, "
+      + "o.status, o.price, o.quantity, o.timestamp) "
+      + "FROM Order o JOIN o.stock s WHERE o.user.id = :userId "
+      + "AND (:stockId IS NULL OR s.id = :stockId) "
+      + "AND (:status IS NULL OR o.status = :status) "
+      + "AND o.timestamp >= :from AND (o.timestamp < :beforeTime "
+      + "OR (o.timestamp = :beforeTime AND o.id < :beforeId)) "
+      + "ORDER BY o.timestamp DESC, o.id DESC";
+
   public List<Order>
   findByTimestampGreaterThanEqualOrderByTimestampDesc(LocalDateTime timeStamp);
 
   public List<Order> findByUserOrderByTimestampDesc(User user);
 
-  public List<Order>
-  findByStockAndTypeAndStatusInAndPriceLessThanEqualOrderByPriceAsc(
-      Stock stock, OrderType type, List<OrderStatus> status, BigDecimal price);
+  @Query("SELECT new com.uiet.TradingApp.engine.BookOrder(o.id, o.user.id, "
+         + "o.stock.id, o.type, o.price, o.stock.priceScale, o.quantity) "
+         + "FROM Order o WHERE o.status IN :status "
+         + "ORDER BY o.timestamp ASC, o.id ASC")
+  public List<BookOrder>
+  findOpenBookOrders(@Param("status") List<OrderStatus> status);
 
-  public List<Order>
-  findByStockAndTypeAndStatusInAndPriceGreaterThanEqualOrderByPriceDesc(
-      Stock stock, OrderType type, List<OrderStatus> status, BigDecimal price);
+  // A fill projected after the order was cancelled must not revive it
+  @Modifying
+  @Query("UPDATE Order o SET o.quantity = :quantity, o.status = :status "
+         + "WHERE o.id = :id AND o.status <> "
+         + "com.uiet.TradingApp.entity.Enum.OrderStatus.CANCELLED")
+  public int updateFill(@Param("id") Long id, @Param("quantity") Long quantity,
+                        @Param("status") OrderStatus status);
+
+  @Query("SELECT new com.uiet.TradingApp.engine.OpenOrder(o.id, o.user.id, "
+         + "o.stock.id, o.type, o.status, o.price, o.quantity, o.timestamp) "
+         + "FROM Order o WHERE o.status IN :status")
+  public List<OpenOrder>
+  findOpenOrders(@Param("status") List<OrderStatus> status);
+
+  @Query("SELECT new com.uiet.TradingApp.engine.OpenOrder(o.id, o.user.id, "
+         + "o.stock.id, o.type, o.status, o.price, o.quantity, o.timestamp) "
+         + "FROM Order o WHERE o.status IN :status "
+         + "AND o.timeInForce = :timeInForce")
+  public List<OpenOrder>
+  findOpenOrdersByTimeInForce(@Param("status") List<OrderStatus> status,
+                              @Param("timeInForce") TimeInForce timeInForce);
 
-  public List<Order> findByUser_UserName(String userName);
+  @Query("SELECT new com.uiet.TradingApp.DTO.OrderDTO(o.id, s.symbol, o.type, "
+         + "o.status, o.price, o.quantity, o.timestamp) "
+         + "FROM Order o JOIN o.stock s WHERE o.id IN :ids")
+  public List<OrderDTO> findOrderDTOs(@Param("ids") Collection<Long> ids);
 
-  public List<Order> findByUser_id(Long userId);
+  @Query(HISTORY_QUERY)
+  public List<OrderDTO> findUserHistory(@Param("userId") Long userId,
+                                        @Param("stockId") Long stockId,
+                                        @Param("status") OrderStatus status,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("beforeTime")
+                                        LocalDateTime beforeTime,
+                                        @Param("beforeId") Long beforeId,
+                                        Pageable pageable);
 }
@@ -6,9 +6,36 @@ import com.uiet.TradingApp.entity.User;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PortfolioRepository extends JpaRepository<Portfolio, Long> {
   public Optional<Portfolio> findByUserAndStock(User user, Stock stock);
 
   public List<Portfolio> findByUser(User user);
+
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE Portfolio p SET p.quantity = p.quantity + :delta "
+         + "WHERE p.user.id = :userId AND p.stock.id = :stockId")
+  public int addQuantity(@Param("userId") Long userId,
+                         @Param("stockId") Long stockId,
+                         @Param("delta") Long delta);
+
+  // Zero rows when there is no position or it holds fewer than count
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE Portfolio p SET p.quantity = p.quantity - :count "
+         + "WHERE p.user.id = :userId AND p.stock.id = :stockId "
+         + "AND p.quantity >= :count")
+  public int removeQuantity(@Param("userId") Long userId,
+                            @Param("stockId") Long stockId,
+                            @Param("count") Long count);
+
+  @Modifying
+  @Query("DELETE FROM Portfolio p WHERE p.user.id = :userId "
+         + "AND p.stock.id = :stockId AND p.quantity = 0")
+  public int deleteEmpty(@Param("userId") Long userId,
+                         @Param("stockId") Long stockId);
+
+  public boolean existsByUser_IdAndStock_Id(Long userId, Long stockId);
 }
@@ -2,13 +2,26 @@ package com.uiet.TradingApp.repository;
 
 import com.uiet.TradingApp.entity.Company;
 import com.uiet.TradingApp.entity.Stock;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface StockRepository extends JpaRepository<Stock, Long> {
   public Optional<Stock> findBySymbol(String symbol);
 
+  @Query("SELECT s FROM Stock s LEFT JOIN FETCH s.company")
+  public List<Stock> findAllWithCompany();
+
+  @Query("SELECT s FROM Stock s LEFT JOIN FETCH s.company WHERE s.id IN :ids")
+  public List<Stock>
+  findAllWithCompanyByIdIn(@Param("ids") Collection<Long> ids);
+
   public List<Stock> findByCurrentPrice(Double price);
 
   public List<Stock> findByCompany(Company company);
@@ -21,4 +34,22 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
   // search by both
   List<Stock> findByCompany_NameContainingIgnoreCaseAndCompany_SectorIgnoreCase(
       String name, String sector);
+
+  // Written from the resident market state; skips the entity callbacks, so
+  // the total price is computed here
+  @Modifying
+  @Query("UPDATE Stock s SET s.currentPrice = :last, s.openPrice = :open, "
+         + "s.highPrice = :high, s.lowPrice = :low, s.closePrice = :close, "
+         + "s.tradedVolume = :volume, s.turnover = :turnover, "
+         + "s.tradeCount = :trades, s.lastUpdated = :lastUpdated, "
+         + "s.totalPrice = :last * s.totalStocks WHERE s.id = :id")
+  int updateMarketState(@Param("id") Long id, @Param("last") BigDecimal last,
+                        @Param("open") BigDecimal open,
+                        @Param("high") BigDecimal high,
+                        @Param("low") BigDecimal low,
+                        @Param("close") BigDecimal close,
+                        @Param("volume") Long volume,
+                        @Param("turnover") BigDecimal turnover,
+                        @Param("trades") Long trades,
+                        @Param("lastUpdated") LocalDateTime lastUpdated);
 }
@@ -1,15 +1,87 @@
 package com.uiet.TradingApp.repository;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+import com.uiet.TradingApp.DTO.TradeDTO;
+import com.uiet.TradingApp.DTO.UnsettledTrade;
 import com.uiet.TradingApp.entity.Trade;
-import com.uiet.TradingApp.entity.User;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface TradeRepository extends JpaRepository<Trade, Long> {
-  @Query("SELECT t FROM Trade t WHERE t.buyer = :user OR t.seller = :user "
-         + "ORDER BY t.timestamp DESC")
-  List<Trade>
-  findByUser(@Param("user") User user);
+  String HISTORY_SELECT =
+      "SELECT new com.uiet.TradingApp.DTO.TradeDTO(t.id, s.symbol, "
+      + "t.quantity, t.price, t.timestamp, b.userName, se.userName) "
+      + "FROM Trade t JOIN t.stock s JOIN t.buyer b JOIN t.seller se ";
+  // Keyset condition: strictly after the cursor in descending key order
+  String HISTORY_FILTER =
+      "AND (:stockId IS NULL OR s.id = :stockId) "
+      + "AND t.timestamp >= :from AND (t.timestamp < :beforeTime "
+      + "OR (t.timestamp = :beforeTime AND t.id < :beforeId)) "
+      + "ORDER BY t.timestamp DESC, t.id DESC";
+
+  // Buyer and seller sides are separate queries so each can walk its own
+  // (user, timestamp, id) index; callers merge the two in key order
+  @Query(HISTORY_SELECT + "WHERE t.buyer.id = :userId " + HISTORY_FILTER)
+  List<TradeDTO>
+  findBuyerHistory(@Param("userId") Long userId,
+                   @Param("stockId") Long stockId,
+                   @Param("from") LocalDateTime from,
+                   @Param("beforeTime") LocalDateTime beforeTime,
+                   @Param("beforeId") Long beforeId,
+                   Pageable pageable);
+
+  @Query(HISTORY_SELECT + "WHERE t.seller.id = :userId " + HISTORY_FILTER)
+  List<TradeDTO>
+  findSellerHistory(@Param("userId") Long userId,
+                    @Param("stockId") Long stockId,
+                    @Param("from") LocalDateTime from,
+                    @Param("beforeTime") LocalDateTime beforeTime,
+                    @Param("beforeId") Long beforeId,
+                    Pageable pageable);
+
+  // Forward-only variants for exports; must be consumed in a transaction
+  @Query(HISTORY_SELECT + "WHERE t.buyer.id = :userId " + HISTORY_FILTER)
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+  Stream<TradeDTO>
+  streamBuyerHistory(@Param("userId") Long userId,
+                     @Param("stockId") Long stockId,
+                     @Param("from") LocalDateTime from,
+                     @Param("beforeTime") LocalDateTime beforeTime,
+                     @Param("beforeId") Long beforeId);
+
+  @Query(HISTORY_SELECT + "WHERE t.seller.id = :userId " + HISTORY_FILTER)
+  @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+  Stream<TradeDTO>
+  streamSellerHistory(@Param("userId") Long userId,
+                      @Param("stockId") Long stockId,
+                      @Param("from") LocalDateTime from,
+                      @Param("beforeTime") LocalDateTime beforeTime,
+                      @Param("beforeId") Long beforeId);
+
+  @Query("SELECT new com.uiet.TradingApp.DTO.UnsettledTrade(t.id, t.buyer.id, "
+         + "t.seller.id, t.stock.id, t.quantity, t.price, t.sentBalance, "
+         + "t.sentStocks) FROM Trade t "
+         + "WHERE t.sentBalance = false OR t.sentStocks = false ORDER BY t.id")
+  List<UnsettledTrade>
+  findUnsettled(Pageable pageable);
+
+  // The sentBalance = false guard makes a concurrent settler see a short count
+  @Modifying
+  @Query("UPDATE Trade t SET t.sentBalance = true "
+         + "WHERE t.id IN :ids AND t.sentBalance = false")
+  int markBalanceSent(@Param("ids") List<Long> ids);
+
+  @Modifying
+  @Query("UPDATE Trade t SET t.sentStocks = true "
+         + "WHERE t.id IN :ids AND t.sentStocks = false")
+  int markStocksSent(@Param("ids") List<Long> ids);
 }
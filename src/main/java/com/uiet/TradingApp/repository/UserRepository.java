@@ -1,8 +1,12 @@
 package com.uiet.TradingApp.repository;
 
 import com.uiet.TradingApp.entity.User;
+import java.math.BigDecimal;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -12,4 +16,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
   void deleteByUserName(String userName);
 
   Optional<User> findByEmail(String email);
+
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE User u SET u.balance = u.balance + :delta WHERE u.id = :id")
+  int addBalance(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+  // Zero rows when the balance does not cover the amount
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE User u SET u.balance = u.balance - :amount "
+         + "WHERE u.id = :id AND u.balance >= :amount")
+  int deductBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,67 @@
+package com.uiet.TradingApp.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Key/value cache for hot read models. LocalCacheStore keeps them in this JVM;
+// RedisCacheStore shares them between nodes. Values must be plain DTOs or
+// JDK value types, never JPA entities, since the Redis store round-trips them
+// through JSON.
+public interface CacheStore {
+  <T> Optional<T> get(String key, Class<T> type);
+
+  <T> Optional<List<T>> getList(String key, Class<T> elementType);
+
+  void put(String key, Object value);
+
+  void put(String key, Object value, Duration ttl);
+
+  void evict(String key);
+
+  boolean exists(String key);
+
+  // True when other nodes see the same entries
+  boolean isShared();
+
+  // Writes once the surrounding transaction commits, so a rollback never
+  // leaves its values behind
+  default void putAfterCommit(String key, Object value) {
+    putAfterCommit(key, value, null);
+  }
+
+  default void putAfterCommit(String key, Object value, Duration ttl) {
+    Runnable write =
+        ttl == null ? () -> put(key, value) : () -> put(key, value, ttl);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              write.run();
+            }
+          });
+    } else {
+      write.run();
+    }
+  }
+
+  // Evicts once the surrounding transaction commits, so a concurrent reader
+  // cannot cache the old row again in between. Never evicts inside the
+  // transaction, a cache outage must not roll back the write it follows.
+  default void evictAfterCommit(String key) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evict(key);
+            }
+          });
+    } else {
+      evict(key);
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.DTO.CandleDTO;
+import com.uiet.TradingApp.engine.CandleBar;
+import com.uiet.TradingApp.engine.CandleInterval;
+import com.uiet.TradingApp.engine.CandleSeries;
+import com.uiet.TradingApp.engine.PriceTicks;
+import com.uiet.TradingApp.entity.Candle;
+import com.uiet.TradingApp.entity.Trade;
+import com.uiet.TradingApp.repository.CandleRepository;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Builds OHLCV bars from committed trades as they happen. The latest
+// candles.ring-size bars of every interval stay in memory; changed bars are
+// written to the candle table every candles.flush-ms in one batch, so chart
+// reads never aggregate the trade table.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CandleService {
+  private final CandleRepository candleRepository;
+  private final ReferenceDataService referenceDataService;
+  private final PlatformTransactionManager transactionManager;
+
+  @Value("${candles.ring-size:720}") private int ringSize;
+
+  private final Map<Long, Feed> feeds = new ConcurrentHashMap<>();
+  private TransactionTemplate readTransaction;
+  private TransactionTemplate writeTransaction;
+
+  // One series per interval, indexed by ordinal, all in the stock's scale
+  private static final class Feed {
+    final int scale;
+    final CandleSeries[] series;
+
+    Feed(int scale, CandleSeries[] series) {
+      this.scale = scale;
+      this.series = series;
+    }
+  }
+
+  @PostConstruct
+  public void init() {
+    // A fresh transaction, since feeds are created from afterCommit where the
+    // finished transaction's session is still bound
+    readTransaction = new TransactionTemplate(transactionManager);
+    readTransaction.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    readTransaction.setReadOnly(true);
+    writeTransaction = new TransactionTemplate(transactionManager);
+  }
+
+  // Applied once the trade's transaction commits, so a rolled back fill
+  // never shows up in a bar
+  public void onTrade(Trade trade) {
+    long stockId = trade.getStock().getId();
+    int scale = PriceTicks.scaleOf(trade.getStock());
+    long time = epochMillis(trade.getTimestamp());
+    long price = PriceTicks.toTicks(trade.getPrice(), scale);
+    long quantity = trade.getQuantity();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              record(stockId, scale, time, price, quantity);
+            }
+          });
+    } else {
+      record(stockId, scale, time, price, quantity);
+    }
+  }
+
+  private void record(long stockId, int scale, long time, long price,
+                      long quantity) {
+    try {
+      Feed feed = feeds.computeIfAbsent(stockId, id -> newFeed(id, scale));
+      if (feed.scale != scale) {
+        log.warn("WARN: Price scale of stock {} changed, dropping trade",
+                 stockId);
+        return;
+      }
+      for (CandleSeries series : feed.series) {
+        series.onTrade(time, price, quantity);
+      }
+    } catch (Exception e) {
+      log.error("ERROR: Failed to record trade in candles for stock {}",
+                stockId, e);
+    }
+  }
+
+  // Continues the latest stored bar of each interval, so a restart in the
+  // middle of a bucket does not overwrite it with a partial one
+  private Feed newFeed(long stockId, int scale) {
+    CandleInterval[] intervals = CandleInterval.values();
+    CandleSeries[] series = new CandleSeries[intervals.length];
+    for (CandleInterval interval : intervals) {
+      CandleSeries candles = new CandleSeries(interval, ringSize);
+      if (interval.isPersisted()) {
+        readTransaction
+            .execute(status
+                     -> candleRepository
+                            .findFirstByStockIdAndIntervalOrderByOpenTimeDesc(
+                                stockId, interval.getCode()))
+            .filter(candle -> candle.getPriceScale() == scale)
+            .ifPresent(candle -> candles.restore(toBar(candle)));
+      }
+      series[interval.ordinal()] = candles;
+    }
+    return new Feed(scale, series);
+  }
+
+  // New bars are inserted in one batch and bars that already have a row are
+  // updated in place, so neither pays for a lookup first
+  @Scheduled(fixedDelayString = "${candles.flush-ms:1000}")
+  public synchronized void flush() {
+    List<Candle> inserts = new ArrayList<>();
+    List<Candle> updates = new ArrayList<>();
+    List<Runnable> undo = new ArrayList<>();
+    List<Runnable> stored = new ArrayList<>();
+    feeds.forEach((stockId, feed) -> {
+      for (CandleSeries series : feed.series) {
+        if (!series.getInterval().isPersisted()) {
+          continue;
+        }
+        List<CandleBar> bars = series.drainDirty();
+        if (bars.isEmpty()) {
+          continue;
+        }
+        for (CandleBar bar : bars) {
+          Candle candle =
+              toCandle(stockId, feed.scale, series.getInterval(), bar);
+          if (series.isStored(bar)) {
+            updates.add(candle);
+          } else {
+            candle.setNewRow(true);
+            inserts.add(candle);
+          }
+        }
+        undo.add(() -> series.markDirty(bars));
+        stored.add(() -> series.markStored(bars));
+      }
+    });
+    int count = inserts.size() + updates.size();
+    if (count == 0) {
+      return;
+    }
+    try {
+      writeTransaction.executeWithoutResult(status -> {
+        candleRepository.saveAll(inserts);
+        for (Candle candle : updates) {
+          candleRepository.updateBar(
+              candle.getStockId(), candle.getInterval(), candle.getOpenTime(),
+              candle.getHigh(), candle.getLow(), candle.getClose(),
+              candle.getVolume(), candle.getTrades());
+        }
+      });
+      stored.forEach(Runnable::run);
+      log.info("INFO: Flushed {} candles", count);
+    } catch (Exception e) {
+      log.error("ERROR: Failed to flush {} candles", count, e);
+      undo.forEach(Runnable::run);
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    flush();
+  }
+
+  // The latest `limit` bars opening in [from, to), oldest first. Memory holds
+  // every bar from its earliest one onwards; older ones come from the table.
+  public List<CandleDTO> getCandles(StockRef stock, CandleInterval interval,
+                                    LocalDateTime from, LocalDateTime to,
+                                    int limit) {
+    long fromMillis = from == null ? Long.MIN_VALUE : epochMillis(from);
+    long toMillis = to == null ? Long.MAX_VALUE : epochMillis(to);
+    int scale = stock.getPriceScale() == null ? PriceTicks.DEFAULT_SCALE
+                                              : stock.getPriceScale();
+    List<CandleBar> recent = new ArrayList<>();
+    long earliest = Long.MAX_VALUE;
+    Feed feed = feeds.get(stock.getStockId());
+    if (feed != null && feed.scale == scale) {
+      CandleSeries series = feed.series[interval.ordinal()];
+      recent = series.range(fromMillis, toMillis);
+      earliest = series.earliest();
+    }
+    List<CandleBar> bars = new ArrayList<>();
+    int missing = limit - recent.size();
+    if (missing > 0 && interval.isPersisted() && fromMillis < earliest) {
+      List<Candle> stored = candleRepository.findRange(
+          stock.getStockId(), interval.getCode(), fromMillis,
+          Math.min(toMillis, earliest), PageRequest.of(0, missing));
+      for (int i = stored.size() - 1; i >= 0; i--) {
+        if (stored.get(i).getPriceScale() == scale) {
+          bars.add(toBar(stored.get(i)));
+        }
+      }
+    }
+    bars.addAll(recent.subList(Math.max(recent.size() - limit, 0),
+                               recent.size()));
+    return bars.stream().map(bar -> toDTO(bar, scale)).toList();
+  }
+
+  private static long epochMillis(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private static CandleBar toBar(Candle candle) {
+    return new CandleBar(candle.getOpenTime(), candle.getOpen(),
+                         candle.getHigh(), candle.getLow(), candle.getClose(),
+                         candle.getVolume(), candle.getTrades());
+  }
+
+  private static Candle toCandle(long stockId, int scale,
+                                 CandleInterval interval, CandleBar bar) {
+    return Candle.builder()
+        .stockId(stockId)
+        .interval(interval.getCode())
+        .openTime(bar.getOpenTime())
+        .priceScale(scale)
+        .open(bar.getOpen())
+        .high(bar.getHigh())
+        .low(bar.getLow())
+        .close(bar.getClose())
+        .volume(bar.getVolume())
+        .trades(bar.getTrades())
+        .build();
+  }
+
+  private static CandleDTO toDTO(CandleBar bar, int scale) {
+    return CandleDTO.builder()
+        .time(bar.getOpenTime())
+        .open(PriceTicks.toPrice(bar.getOpen(), scale))
+        .high(PriceTicks.toPrice(bar.getHigh(), scale))
+        .low(PriceTicks.toPrice(bar.getLow(), scale))
+        .close(PriceTicks.toPrice(bar.getClose(), scale))
+        .volume(bar.getVolume())
+        .trades(bar.getTrades())
+        .build();
+  }
+}
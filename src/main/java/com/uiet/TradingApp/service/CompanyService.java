@@ -1,5 +1,6 @@
 package com.uiet.TradingApp.service;
 
+import com.uiet.TradingApp.DTO.CompanyDTO;
 import com.uiet.TradingApp.DTO.NewPortfolio;
 import com.uiet.TradingApp.entity.Company;
 import com.uiet.TradingApp.entity.Portfolio;
@@ -10,6 +11,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,9 +26,30 @@ public class CompanyService {
   private final UserService userService;
   private final CompanyRepository companyRepository;
   private final PortfolioService portfolioService;
+  private final CacheStore cacheStore;
+  private final ReferenceDataService referenceDataService;
+
+  private static final String ALL_COMPANIES_KEY = "companies:all";
 
   public List<Company> getAllCompanies() { return companyRepository.findAll(); }
 
+  public List<CompanyDTO> getAllCompanyDTOs() {
+    Optional<List<CompanyDTO>> cached =
+        cacheStore.getList(ALL_COMPANIES_KEY, CompanyDTO.class);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+    List<CompanyDTO> companies =
+        companyRepository.findAll().stream().map(this::convertToDTO).toList();
+    cacheStore.put(ALL_COMPANIES_KEY, companies);
+    return companies;
+  }
+
+  public CompanyDTO convertToDTO(Company company) {
+    return new CompanyDTO(company.getName(), company.getTickerSymbol(),
+                          company.getSector(), company.getMarketCap());
+  }
+
   public Optional<Company> getByTickerSymbol(String tickerSymbol) {
     return companyRepository.findByTickerSymbol(tickerSymbol);
   }
@@ -49,18 +72,31 @@ public class CompanyService {
     company.setCreatedAt(LocalDateTime.now());
     companyRepository.save(company);
     newUserForCompany(company);
+    cacheStore.evictAfterCommit(ALL_COMPANIES_KEY);
   }
 
   @Transactional
   public void saveEntry(Company company) {
     company.setMarketCap(calculateMarketCap(company));
     companyRepository.save(company);
+    cacheStore.evictAfterCommit(ALL_COMPANIES_KEY);
+    // A rename or sector change shows up in every snapshot StockRef
+    referenceDataService.reloadAfterCommit();
+  }
+
+  // Written by the valuation layer, which keeps the caps current in memory
+  @Transactional
+  public void updateMarketCaps(Map<Long, BigDecimal> marketCaps) {
+    marketCaps.forEach(companyRepository::updateMarketCap);
+    cacheStore.evictAfterCommit(ALL_COMPANIES_KEY);
   }
 
   @Transactional
   public void deleteEntry(Company company) {
     log.info("INFO: Deleting company {}", company.getName());
     companyRepository.delete(company);
+    cacheStore.evictAfterCommit(ALL_COMPANIES_KEY);
+    referenceDataService.reloadAfterCommit();
   }
 
   public Optional<Company> findById(Long id) {
@@ -0,0 +1,198 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.engine.JournalRecord;
+import com.uiet.TradingApp.engine.JournalRecordType;
+import com.uiet.TradingApp.engine.PriceTicks;
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.entity.JournalCheckpoint;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.entity.Trade;
+import com.uiet.TradingApp.repository.JournalCheckpointRepository;
+import com.uiet.TradingApp.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Applies journalled fills to the orders and trade tables in batches, off the
+// matching path, and refunds buyers whose fills beat their limit price. The
+// checkpoint is written in the same transaction as each batch, so every
+// record is projected exactly once, including on replay.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JournalProjector {
+  private final JournalService journalService;
+  private final JournalCheckpointRepository checkpointRepository;
+  private final OrderRepository orderRepository;
+  private final OrderBookService orderBookService;
+  private final MatchingSequencer matchingSequencer;
+  private final TradeService tradeService;
+  private final StockService stockService;
+  private final UserService userService;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${journal.projection-batch-size:256}") private int batchSize;
+
+  private final BlockingQueue<JournalRecord> queue =
+      new LinkedBlockingQueue<>();
+  private volatile boolean running = true;
+  private volatile long projectedSequence;
+  private Thread worker;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    long checkpoint = checkpointRepository.findById(JournalCheckpoint.ID)
+                          .map(JournalCheckpoint::getLastSequence)
+                          .orElse(0L);
+    List<JournalRecord> pending = new ArrayList<>();
+    journalService.open(checkpoint, record -> {
+      if (record.getSequence() > checkpoint) {
+        pending.add(record);
+      }
+    }, this::enqueue);
+    projectedSequence = checkpoint;
+    for (int i = 0; i < pending.size(); i += batchSize) {
+      apply(pending.subList(i, Math.min(pending.size(), i + batchSize)));
+    }
+    log.info("INFO: Replayed {} journal records past checkpoint {}",
+             pending.size(), checkpoint);
+    orderBookService.rebuildAll();
+    matchingSequencer.open();
+    worker = new Thread(this::run, "journal-projector");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  public void enqueue(JournalRecord record) { queue.add(record); }
+
+  public long getProjectedSequence() { return projectedSequence; }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    if (worker != null) {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  private void run() {
+    List<JournalRecord> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty() || !batch.isEmpty()) {
+      try {
+        if (batch.isEmpty()) {
+          JournalRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+          if (first == null) {
+            continue;
+          }
+          batch.add(first);
+          queue.drainTo(batch, batchSize - 1);
+        }
+        apply(batch);
+        batch.clear();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Exception e) {
+        log.error("ERROR: Failed to project journal batch, retrying", e);
+        sleepQuietly();
+      }
+    }
+  }
+
+  private void apply(List<JournalRecord> batch) {
+    long last = batch.get(batch.size() - 1).getSequence();
+    transactionTemplate.executeWithoutResult(status -> {
+      Map<Long, BigDecimal> buyLimits = buyLimits(batch);
+      // Sorted so the refund updates lock users in a stable order
+      Map<Long, BigDecimal> refunds = new TreeMap<>();
+      for (JournalRecord record : batch) {
+        if (record.getType() == JournalRecordType.FILL) {
+          applyFill(record, buyLimits, refunds);
+        }
+      }
+      refunds.forEach(userService::applyBalanceDelta);
+      checkpointRepository.save(
+          new JournalCheckpoint(JournalCheckpoint.ID, last));
+    });
+    projectedSequence = last;
+  }
+
+  // Limit prices of the buy orders filled in this batch, in one query
+  private Map<Long, BigDecimal> buyLimits(List<JournalRecord> batch) {
+    Set<Long> buyOrderIds = new HashSet<>();
+    for (JournalRecord record : batch) {
+      if (record.getType() == JournalRecordType.FILL) {
+        buyOrderIds.add(record.getBuyOrderId());
+      }
+    }
+    Map<Long, BigDecimal> limits = new HashMap<>();
+    if (!buyOrderIds.isEmpty()) {
+      orderRepository.findOrderDTOs(buyOrderIds).forEach(
+          order -> limits.put(order.getId(), order.getPrice()));
+    }
+    return limits;
+  }
+
+  private void applyFill(JournalRecord record, Map<Long, BigDecimal> buyLimits,
+                         Map<Long, BigDecimal> refunds) {
+    orderRepository.updateFill(record.getBuyOrderId(),
+                               record.getBuyRemaining(),
+                               statusFor(record.getBuyRemaining()));
+    orderRepository.updateFill(record.getSellOrderId(),
+                               record.getSellRemaining(),
+                               statusFor(record.getSellRemaining()));
+    Stock stock = stockService.getReference(record.getStockId());
+    Trade trade = tradeService.newTrade(
+        userService.getReference(record.getBuyerId()),
+        userService.getReference(record.getSellerId()), stock,
+        record.getQuantity(),
+        PriceTicks.toPrice(record.getPrice(), PriceTicks.scaleOf(stock)));
+    trade.setTimestamp(LocalDateTime.ofInstant(
+        Instant.ofEpochMilli(record.getTimestamp()), ZoneId.systemDefault()));
+    tradeService.newEntry(trade);
+    // The buyer reserved its limit price; a fill below it returns the rest
+    BigDecimal limit = buyLimits.get(record.getBuyOrderId());
+    if (limit != null) {
+      int scale = PriceTicks.scaleOf(stock);
+      long improvement = PriceTicks.toTicks(limit, scale) - record.getPrice();
+      if (improvement > 0L) {
+        refunds.merge(record.getBuyerId(),
+                      PriceTicks.toPrice(PriceTicks.notional(
+                                             improvement, record.getQuantity()),
+                                         scale),
+                      BigDecimal::add);
+      }
+    }
+  }
+
+  private OrderStatus statusFor(long remaining) {
+    return remaining == 0L ? OrderStatus.FILLED : OrderStatus.PARTIALLY_FILLED;
+  }
+
+  private void sleepQuietly() {
+    try {
+      Thread.sleep(1000L);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
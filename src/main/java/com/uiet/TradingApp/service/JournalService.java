@@ -0,0 +1,122 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.engine.JournalRecord;
+import com.uiet.TradingApp.engine.OrderJournal;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Owns the order journal, the system of record for the matching path
+@Slf4j
+@Service
+public class JournalService {
+  @Value("${journal.path:data/journal}") private String path;
+  @Value("${journal.segment-size-mb:64}") private int segmentSizeMb;
+  @Value("${journal.flush-interval-ms:10}") private long flushIntervalMs;
+  @Value("${journal.durable-timeout-ms:1000}") private long durableTimeoutMs;
+
+  private volatile OrderJournal journal;
+  private ScheduledExecutorService flusher;
+
+  // Replays every record, then releases new ones to the durable consumer as
+  // they are forced. A journal that ends before the projection checkpoint
+  // lost its tail in a crash; numbering resumes after the checkpoint so the
+  // new records are not mistaken for ones already projected.
+  public synchronized void open(long checkpoint,
+                                Consumer<JournalRecord> replay,
+                                Consumer<JournalRecord> durable) {
+    try {
+      OrderJournal opened = new OrderJournal(
+          Path.of(path), segmentSizeMb * 1024 * 1024, durable);
+      opened.replay(replay);
+      if (opened.getLastSequence() < checkpoint) {
+        log.error("ERROR: Journal ends at sequence {} but the projection "
+                      + "checkpoint is {}, the journal tail was lost; "
+                      + "continuing after the checkpoint",
+                  opened.getLastSequence(), checkpoint);
+        opened.skipTo(checkpoint);
+      }
+      journal = opened;
+      startFlusher();
+      log.info("INFO: Journal opened at {}", Path.of(path).toAbsolutePath());
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to open journal at " + path, e);
+    }
+  }
+
+  public JournalRecord append(JournalRecord record) {
+    OrderJournal current = journal;
+    if (current == null) {
+      throw new RuntimeException("Journal is not open yet, try again");
+    }
+    return current.append(record);
+  }
+
+  // Acks wait here, so a caller only hears back once a group commit has put
+  // its records on disk
+  public void awaitDurable(long sequence) {
+    OrderJournal current = journal;
+    if (current == null) {
+      return;
+    }
+    try {
+      if (!current.awaitForced(sequence, durableTimeoutMs)) {
+        throw new RuntimeException("Timed out waiting for the journal flush");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted waiting for the journal flush");
+    }
+  }
+
+  public long getLastSequence() {
+    OrderJournal current = journal;
+    return current == null ? 0L : current.getLastSequence();
+  }
+
+  // Group commit: one fsync covers everything appended since the last one
+  public void flush() {
+    OrderJournal current = journal;
+    if (current != null) {
+      current.force();
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    if (flusher != null) {
+      flusher.shutdown();
+    }
+    OrderJournal current = journal;
+    if (current != null) {
+      current.close();
+    }
+  }
+
+  // On its own thread so a slow fsync neither delays nor is delayed by the
+  // jobs on the shared scheduler
+  private void startFlusher() {
+    if (flusher != null) {
+      return;
+    }
+    flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "journal-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.scheduleWithFixedDelay(() -> {
+      try {
+        flush();
+      } catch (Exception e) {
+        log.error("ERROR: Failed to flush journal", e);
+      }
+    }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+  }
+}
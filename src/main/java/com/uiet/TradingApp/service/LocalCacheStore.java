@@ -0,0 +1,102 @@
+package com.uiet.TradingApp.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// In-process store for tests and single-node runs. Values are kept by
+// reference, so callers only put immutable ones.
+@Service
+@ConditionalOnProperty(name = "cache.type", havingValue = "local",
+                       matchIfMissing = true)
+public class LocalCacheStore implements CacheStore {
+  @Value("${cache.default-ttl-ms:300000}") private long defaultTtlMillis;
+  @Value("${cache.local.max-entries:100000}") private int maxEntries;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  @AllArgsConstructor
+  private static class Entry {
+    private final Object value;
+    private final long expiresAtMillis;
+  }
+
+  @Override
+  public <T> Optional<T> get(String key, Class<T> type) {
+    Object value = lookup(key);
+    return type.isInstance(value) ? Optional.of(type.cast(value))
+                                  : Optional.empty();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> Optional<List<T>> getList(String key, Class<T> elementType) {
+    Object value = lookup(key);
+    return value instanceof List<?> list ? Optional.of((List<T>)list)
+                                         : Optional.empty();
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    put(key, value, Duration.ofMillis(defaultTtlMillis));
+  }
+
+  @Override
+  public void put(String key, Object value, Duration ttl) {
+    if (entries.size() >= maxEntries) {
+      evictSome(System.currentTimeMillis());
+    }
+    entries.put(key,
+                new Entry(value, System.currentTimeMillis() + ttl.toMillis()));
+  }
+
+  @Override
+  public void evict(String key) {
+    entries.remove(key);
+  }
+
+  @Override
+  public boolean exists(String key) {
+    return lookup(key) != null;
+  }
+
+  @Override
+  public boolean isShared() {
+    return false;
+  }
+
+  @Scheduled(fixedDelayString = "${cache.local.sweep-ms:60000}")
+  public void sweep() {
+    long now = System.currentTimeMillis();
+    entries.values().removeIf(entry -> entry.expiresAtMillis <= now);
+  }
+
+  private Object lookup(String key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+      entries.remove(key, entry);
+      return null;
+    }
+    return entry.value;
+  }
+
+  private void evictSome(long now) {
+    entries.values().removeIf(entry -> entry.expiresAtMillis <= now);
+    Iterator<String> it = entries.keySet().iterator();
+    while (entries.size() >= maxEntries && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.DTO.DepthLevel;
+import com.uiet.TradingApp.DTO.DepthUpdate;
+import com.uiet.TradingApp.engine.BookSide;
+import com.uiet.TradingApp.engine.OrderBook;
+import com.uiet.TradingApp.engine.PriceLevel;
+import com.uiet.TradingApp.engine.PriceTicks;
+import com.uiet.TradingApp.entity.Stock;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+// Level 2 feed. Deltas are built on the shard that owns the book right after
+// each action, and snapshots are taken on that same shard, so a snapshot's
+// sequence lines up exactly with the deltas that follow it. Serializing and
+// sending happens on a single publisher thread to keep it off the shard; if
+// that thread falls behind, deltas are dropped and clients see the gap.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarketDepthService {
+  private final OrderBookService orderBookService;
+  private final MatchingSequencer matchingSequencer;
+  private final SimpMessagingTemplate messagingTemplate;
+
+  @Value("${market-data.publish-queue-size:65536}") private int queueSize;
+
+  private final AtomicLong dropped = new AtomicLong();
+  private ThreadPoolExecutor publisher;
+
+  @PostConstruct
+  public void start() {
+    publisher = new ThreadPoolExecutor(
+        1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+        runnable -> {
+          Thread thread = new Thread(runnable, "depth-publisher");
+          thread.setDaemon(true);
+          return thread;
+        },
+        (runnable, executor) -> {
+          if (dropped.incrementAndGet() % 1000 == 1) {
+            log.warn("WARN: Depth publisher is behind, {} deltas dropped",
+                     dropped.get());
+          }
+        });
+  }
+
+  @PreDestroy
+  public void stop() {
+    publisher.shutdown();
+  }
+
+  // Must run on the stock's shard
+  public void publishChanges(Stock stock) {
+    OrderBook book = orderBookService.getBook(stock.getId());
+    if (!book.hasDepthChanges()) {
+      return;
+    }
+    int scale = PriceTicks.scaleOf(stock);
+    List<DepthLevel> bids = changedLevels(book.getBids(), scale);
+    List<DepthLevel> asks = changedLevels(book.getAsks(), scale);
+    DepthUpdate update = DepthUpdate.builder()
+                             .symbol(stock.getSymbol())
+                             .sequence(book.nextDepthSequence())
+                             .snapshot(false)
+                             .bids(bids)
+                             .asks(asks)
+                             .build();
+    publisher.execute(() -> {
+      try {
+        messagingTemplate.convertAndSend("/topic/depth/" + update.getSymbol(),
+                                         update);
+      } catch (Exception e) {
+        log.error("ERROR: Failed to publish depth for {}", update.getSymbol(),
+                  e);
+      }
+    });
+  }
+
+  public DepthUpdate snapshot(Stock stock) {
+    return matchingSequencer.await(
+        matchingSequencer.submit(stock.getId(), () -> {
+          OrderBook book = orderBookService.getBook(stock.getId());
+          int scale = PriceTicks.scaleOf(stock);
+          return DepthUpdate.builder()
+              .symbol(stock.getSymbol())
+              .sequence(book.getDepthSequence())
+              .snapshot(true)
+              .bids(allLevels(book.getBids(), scale))
+              .asks(allLevels(book.getAsks(), scale))
+              .build();
+        }));
+  }
+
+  private List<DepthLevel> changedLevels(BookSide side, int scale) {
+    List<DepthLevel> levels = new ArrayList<>(side.changedCount());
+    for (int i = 0; i < side.changedCount(); i++) {
+      long price = side.changedPrice(i);
+      PriceLevel level = side.get(price);
+      levels.add(level == null
+                     ? new DepthLevel(PriceTicks.toPrice(price, scale), 0L, 0)
+                     : toDepthLevel(level, scale));
+    }
+    return levels;
+  }
+
+  // Best level first
+  private List<DepthLevel> allLevels(BookSide side, int scale) {
+    List<DepthLevel> levels = new ArrayList<>(side.size());
+    for (int depth = 0; depth < side.size(); depth++) {
+      levels.add(toDepthLevel(side.level(depth), scale));
+    }
+    return levels;
+  }
+
+  private DepthLevel toDepthLevel(PriceLevel level, int scale) {
+    return new DepthLevel(PriceTicks.toPrice(level.getPrice(), scale),
+                          level.getTotalQuantity(), level.getOrders().size());
+  }
+}
@@ -0,0 +1,210 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.engine.MarketState;
+import com.uiet.TradingApp.engine.MarketState.Quote;
+import com.uiet.TradingApp.engine.PriceTicks;
+import com.uiet.TradingApp.engine.SessionStats;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.entity.Trade;
+import com.uiet.TradingApp.repository.StockRepository;
+import com.uiet.TradingApp.service.ReferenceDataService.Snapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Last, open, high, low and close of every stock, held in memory and moved
+// by committed trades, along with the session stats the matching thread
+// counts. Stock reads are served from here; the stocks rows are brought up
+// to date every market-state.flush-ms and on shutdown, so a hot symbol costs
+// one row update per flush instead of one per fill.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MarketStateService {
+  private final StockRepository stockRepository;
+  private final ReferenceDataService referenceDataService;
+  private final PlatformTransactionManager transactionManager;
+
+  private final Map<Long, MarketState> states = new ConcurrentHashMap<>();
+  private long version = -1L;
+  private TransactionTemplate readTransaction;
+  private TransactionTemplate writeTransaction;
+
+  @PostConstruct
+  public void init() {
+    // A fresh transaction, since snapshots are also published from
+    // afterCommit where the finished transaction's session is still bound
+    readTransaction = new TransactionTemplate(transactionManager);
+    readTransaction.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    readTransaction.setReadOnly(true);
+    writeTransaction = new TransactionTemplate(transactionManager);
+    onReferenceData(referenceDataService.getSnapshot());
+  }
+
+  // Loads listed stocks and drops delisted ones
+  @EventListener
+  public synchronized void onReferenceData(Snapshot snapshot) {
+    if (snapshot.getVersion() <= version) {
+      return;
+    }
+    version = snapshot.getVersion();
+    states.keySet().retainAll(snapshot.getById().keySet());
+    List<Long> listed = snapshot.getById()
+                            .keySet()
+                            .stream()
+                            .filter(id -> !states.containsKey(id))
+                            .toList();
+    if (listed.isEmpty()) {
+      return;
+    }
+    List<Stock> stocks =
+        readTransaction.execute(status -> stockRepository.findAllById(listed));
+    for (Stock stock : stocks) {
+      states.put(stock.getId(), load(stock));
+    }
+    log.info("INFO: Holding market state of {} stocks", states.size());
+  }
+
+  public Optional<MarketState> get(Long stockId) {
+    return stockId == null ? Optional.empty()
+                           : Optional.ofNullable(states.get(stockId));
+  }
+
+  // For the matching thread: a map lookup, no Optional
+  public SessionStats getSessionStats(Long stockId) {
+    MarketState state = states.get(stockId);
+    return state == null ? null : state.getSessionStats();
+  }
+
+  public Optional<BigDecimal> getLastPrice(Long stockId) {
+    return get(stockId).map(state
+                            -> PriceTicks.toPrice(state.getQuote().getLast(),
+                                                  state.getScale()));
+  }
+
+  // Applied once the trade's transaction commits
+  public void onTrade(Trade trade) {
+    MarketState state = states.get(trade.getStock().getId());
+    if (state == null) {
+      log.warn("WARN: No market state for stock {}", trade.getStock().getId());
+      return;
+    }
+    long price = PriceTicks.toTicks(trade.getPrice(), state.getScale());
+    LocalDateTime time = trade.getTimestamp();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              state.onTrade(price, time);
+            }
+          });
+    } else {
+      state.onTrade(price, time);
+    }
+  }
+
+  // Must run on the stock's shard, since the session stats are reset there
+  public void rollSession(Long stockId) {
+    MarketState state = states.get(stockId);
+    if (state == null) {
+      return;
+    }
+    state.getSessionStats().reset();
+    state.roll(LocalDateTime.now());
+  }
+
+  @Scheduled(fixedDelayString = "${market-state.flush-ms:1000}")
+  public synchronized void flush() {
+    List<MarketState> dirty = new ArrayList<>();
+    for (MarketState state : states.values()) {
+      if (state.takeDirty()) {
+        dirty.add(state);
+      }
+    }
+    if (dirty.isEmpty()) {
+      return;
+    }
+    try {
+      writeTransaction.executeWithoutResult(status -> {
+        for (MarketState state : dirty) {
+          write(state);
+        }
+      });
+      log.info("INFO: Flushed market state of {} stocks", dirty.size());
+    } catch (Exception e) {
+      log.error("ERROR: Failed to flush market state of {} stocks",
+                dirty.size(), e);
+      dirty.forEach(MarketState::markDirty);
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    flush();
+  }
+
+  private void write(MarketState state) {
+    Quote quote = state.getQuote();
+    SessionStats.Snapshot stats = state.getSessionStats().read();
+    int scale = state.getScale();
+    stockRepository.updateMarketState(
+        state.getStockId(), PriceTicks.toPrice(quote.getLast(), scale),
+        PriceTicks.toPrice(quote.getOpen(), scale),
+        PriceTicks.toPrice(quote.getHigh(), scale),
+        PriceTicks.toPrice(quote.getLow(), scale),
+        quote.getClose() == null
+            ? null
+            : PriceTicks.toPrice(quote.getClose(), scale),
+        stats.getVolume(), PriceTicks.toPrice(stats.getTurnover(), scale),
+        stats.getTrades(), quote.getLastUpdated());
+  }
+
+  private static MarketState load(Stock stock) {
+    int scale = PriceTicks.scaleOf(stock);
+    long last = ticksOrZero(stock.getCurrentPrice(), scale);
+    Quote quote = new Quote(
+        last,
+        stock.getOpenPrice() == null ? last
+                                     : ticksOrZero(stock.getOpenPrice(), scale),
+        stock.getHighPrice() == null ? last
+                                     : ticksOrZero(stock.getHighPrice(), scale),
+        stock.getLowPrice() == null ? last
+                                    : ticksOrZero(stock.getLowPrice(), scale),
+        stock.getClosePrice() == null
+            ? null
+            : ticksOrZero(stock.getClosePrice(), scale),
+        stock.getLastUpdated());
+    SessionStats sessionStats = new SessionStats(
+        stock.getTradedVolume() == null ? 0L : stock.getTradedVolume(),
+        ticksOrZero(stock.getTurnover(), scale),
+        stock.getTradeCount() == null ? 0L : stock.getTradeCount());
+    return new MarketState(stock.getId(), scale, quote, sessionStats);
+  }
+
+  // Stored prices are at the column's scale, so they are rounded back down
+  // to the stock's ticks
+  private static long ticksOrZero(BigDecimal price, int scale) {
+    return price == null
+        ? 0L
+        : PriceTicks.toTicks(price, scale, RoundingMode.HALF_UP);
+  }
+}
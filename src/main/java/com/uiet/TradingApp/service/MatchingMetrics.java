@@ -0,0 +1,92 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.entity.Stock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+// Per-symbol matching meters. Percentiles come from Micrometer's HdrHistogram
+// backed distributions; the meters for a stock are built once and recording
+// is a map lookup plus a histogram increment.
+@Service
+@RequiredArgsConstructor
+public class MatchingMetrics {
+  private final MeterRegistry meterRegistry;
+  private final OrderBookService orderBookService;
+
+  private final Map<Long, SymbolMeters> meters = new ConcurrentHashMap<>();
+
+  public void recordSubmitToAck(Stock stock, long nanos) {
+    forStock(stock).submitToAck.record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordMatch(Stock stock, long nanos, int fills) {
+    SymbolMeters symbolMeters = forStock(stock);
+    symbolMeters.match.record(nanos, TimeUnit.NANOSECONDS);
+    symbolMeters.fillsPerOrder.record(fills);
+    if (fills > 0) {
+      symbolMeters.fills.increment(fills);
+    }
+  }
+
+  private SymbolMeters forStock(Stock stock) {
+    SymbolMeters symbolMeters = meters.get(stock.getId());
+    if (symbolMeters == null) {
+      symbolMeters = meters.computeIfAbsent(
+          stock.getId(), id -> new SymbolMeters(id, stock.getSymbol()));
+    }
+    return symbolMeters;
+  }
+
+  private final class SymbolMeters {
+    private final Timer submitToAck;
+    private final Timer match;
+    private final DistributionSummary fillsPerOrder;
+    private final Counter fills;
+
+    private SymbolMeters(Long stockId, String symbol) {
+      submitToAck = latencyTimer("matching.submit.latency", symbol);
+      match = latencyTimer("matching.match.latency", symbol);
+      fillsPerOrder = DistributionSummary.builder("matching.fills.per.order")
+                          .tag("symbol", symbol)
+                          .publishPercentiles(0.5, 0.99, 0.999)
+                          .register(meterRegistry);
+      fills = Counter.builder("matching.fills")
+                  .tag("symbol", symbol)
+                  .register(meterRegistry);
+      // Read from the scrape thread; a slightly stale size is fine here
+      Gauge.builder("matching.book.orders",
+                    () -> orderBookService.getBook(stockId).size())
+          .tag("symbol", symbol)
+          .register(meterRegistry);
+      Gauge.builder("matching.book.levels",
+                    () -> orderBookService.getBook(stockId).getBids().size())
+          .tag("symbol", symbol)
+          .tag("side", "bid")
+          .register(meterRegistry);
+      Gauge.builder("matching.book.levels",
+                    () -> orderBookService.getBook(stockId).getAsks().size())
+          .tag("symbol", symbol)
+          .tag("side", "ask")
+          .register(meterRegistry);
+    }
+
+    private Timer latencyTimer(String name, String symbol) {
+      return Timer.builder(name)
+          .tag("symbol", symbol)
+          .publishPercentiles(0.5, 0.99, 0.999)
+          .publishPercentileHistogram()
+          .minimumExpectedValue(Duration.ofNanos(1_000))
+          .maximumExpectedValue(Duration.ofSeconds(5))
+          .register(meterRegistry);
+    }
+  }
+}
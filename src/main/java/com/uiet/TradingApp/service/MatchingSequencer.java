@@ -0,0 +1,130 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.engine.SubmissionRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// Routes every order action for a stock to one shard thread, so a book is only
+// ever touched by a single writer and orders on it are processed in sequence.
+@Slf4j
+@Service
+public class MatchingSequencer {
+  @Value("${matching.shards:0}") private int shardCount;
+  @Value("${matching.ring-size:1024}") private int ringSize;
+  @Value("${matching.submit-timeout-ms:5000}") private long submitTimeoutMs;
+
+  private Shard[] shards;
+  private volatile boolean accepting;
+
+  @PostConstruct
+  public void start() {
+    int count = shardCount > 0 ? shardCount
+                               : Runtime.getRuntime().availableProcessors();
+    shards = new Shard[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard(i, new SubmissionRing<>(ringSize));
+      shards[i].thread.start();
+    }
+    log.info("INFO: Started {} matching shards with ring size {}", count,
+             ringSize);
+  }
+
+  // Called once the books are rebuilt, nothing may touch them before that
+  public void open() {
+    accepting = true;
+    log.info("INFO: Matching shards accepting submissions");
+  }
+
+  @PreDestroy
+  public void stop() {
+    for (Shard shard : shards) {
+      shard.running = false;
+      LockSupport.unpark(shard.thread);
+    }
+  }
+
+  public <T> CompletableFuture<T> submit(Long stockId, Supplier<T> action) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    if (!accepting) {
+      future.completeExceptionally(
+          new RuntimeException("Matching is not open yet, try again"));
+      return future;
+    }
+    Shard shard = shards[Math.floorMod(stockId, shards.length)];
+    Runnable task = () -> {
+      try {
+        future.complete(action.get());
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    };
+    if (!shard.ring.offer(task)) {
+      log.error("ERROR: Matching shard {} is full", shard.index);
+      future.completeExceptionally(
+          new RuntimeException("Matching queue is full, try again"));
+      return future;
+    }
+    LockSupport.unpark(shard.thread);
+    return future;
+  }
+
+  // Blocks the caller until its order has been sequenced and matched
+  public <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new RuntimeException(e.getCause());
+    } catch (TimeoutException e) {
+      throw new RuntimeException("Timed out waiting for matching");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted waiting for matching");
+    }
+  }
+
+  private static final class Shard implements Runnable {
+    private final int index;
+    private final SubmissionRing<Runnable> ring;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private Shard(int index, SubmissionRing<Runnable> ring) {
+      this.index = index;
+      this.ring = ring;
+      this.thread = new Thread(this, "matching-shard-" + index);
+      this.thread.setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      int idle = 0;
+      while (running) {
+        Runnable task = ring.poll();
+        if (task != null) {
+          idle = 0;
+          task.run();
+        } else if (++idle < 100) {
+          Thread.onSpinWait();
+        } else {
+          LockSupport.parkNanos(1_000_000L);
+        }
+      }
+      Runnable task;
+      while ((task = ring.poll()) != null) {
+        task.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.engine.BookOrder;
+import com.uiet.TradingApp.engine.OpenOrder;
+import com.uiet.TradingApp.engine.OpenOrderIndex;
+import com.uiet.TradingApp.engine.OrderBook;
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.entity.Order;
+import com.uiet.TradingApp.repository.OrderRepository;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Books are only mutated from the MatchingSequencer shard that owns the stock.
+// The open order index mirrors them per user for readers on other threads.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBookService {
+  public static final List<OrderStatus> OPEN_STATUS =
+      List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
+
+  private final OrderRepository orderRepository;
+  private final Map<Long, OrderBook> books = new ConcurrentHashMap<>();
+  private final OpenOrderIndex openOrders = new OpenOrderIndex();
+
+  // Called by JournalProjector once the journal has been replayed
+  public void rebuildAll() {
+    books.clear();
+    openOrders.clear();
+    List<BookOrder> bookOrders = orderRepository.findOpenBookOrders(OPEN_STATUS);
+    for (BookOrder order : bookOrders) {
+      getBook(order.getStockId()).add(order);
+    }
+    orderRepository.findOpenOrders(OPEN_STATUS).forEach(openOrders::put);
+    // Subscribers start from a snapshot, a rebuilt book has nothing to replay
+    books.values().forEach(OrderBook::nextDepthSequence);
+    log.info("INFO: Rebuilt {} order books with {} open orders", books.size(),
+             bookOrders.size());
+  }
+
+  public OrderBook getBook(Long stockId) {
+    return books.computeIfAbsent(stockId, OrderBook::new);
+  }
+
+  public BookOrder toBookOrder(Order order, long priceTicks) {
+    return new BookOrder(order.getId(), order.getUser().getId(),
+                         order.getStock().getId(), order.getType(), priceTicks,
+                         order.getQuantity());
+  }
+
+  // Rests what is left of an accepted order, its status already reflects any
+  // fills it took on the way in
+  public void rest(OrderBook book, BookOrder incoming, Order order) {
+    book.add(incoming);
+    openOrders.put(new OpenOrder(
+        order.getId(), incoming.getUserId(), incoming.getStockId(),
+        order.getType(), order.getStatus(), order.getPrice(),
+        incoming.getQuantity(), order.getTimestamp()));
+  }
+
+  public void fill(OrderBook book, BookOrder resting, long quantity) {
+    book.fill(resting, quantity);
+    openOrders.fill(resting.getUserId(), resting.getOrderId(),
+                    resting.getQuantity());
+  }
+
+  public List<OpenOrder> getOpenOrders(Long userId, Long stockId) {
+    return openOrders.forUser(userId, stockId);
+  }
+
+  // The book is mutated before the cancel transaction commits, so a rollback
+  // puts the order back
+  public BookOrder remove(Order order) {
+    return remove(order.getStock().getId(), order.getId());
+  }
+
+  public BookOrder remove(Long stockId, Long orderId) {
+    OrderBook book = getBook(stockId);
+    BookOrder removed = book.remove(orderId);
+    OpenOrder indexed = removed == null
+                            ? null
+                            : openOrders.remove(removed.getUserId(),
+                                                removed.getOrderId());
+    if (removed != null &&
+        TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              if (status == STATUS_ROLLED_BACK) {
+                log.warn("WARN: Cancel rolled back, restoring order {}",
+                         removed.getOrderId());
+                book.add(removed);
+                if (indexed != null) {
+                  openOrders.put(indexed);
+                }
+              }
+            }
+          });
+    }
+    return removed;
+  }
+}
@@ -0,0 +1,86 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.DTO.OrderDTO;
+import com.uiet.TradingApp.DTO.OrderPage;
+import com.uiet.TradingApp.engine.OpenOrder;
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.repository.OrderRepository;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import com.uiet.TradingApp.utils.KeysetCursor;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+// A user's orders, newest first, keyed on (timestamp, id) like trade history.
+// Open orders alone are answered from the resident index without a query.
+@Service
+@RequiredArgsConstructor
+public class OrderHistoryService {
+  private static final LocalDateTime EARLIEST =
+      LocalDateTime.of(1970, 1, 1, 0, 0);
+  private static final LocalDateTime LATEST =
+      LocalDateTime.of(9999, 1, 1, 0, 0);
+
+  private final OrderRepository orderRepository;
+  private final OrderBookService orderBookService;
+  private final ReferenceDataService referenceDataService;
+
+  public OrderPage getOrders(Long userId, String symbol, OrderStatus status,
+                             LocalDateTime from, LocalDateTime to,
+                             String cursor, int size) {
+    Long stockId = null;
+    if (symbol != null && !symbol.isBlank()) {
+      Optional<StockRef> stock = referenceDataService.getBySymbol(symbol);
+      if (stock.isEmpty()) {
+        return new OrderPage(List.of(), null);
+      }
+      stockId = stock.get().getStockId();
+    }
+    LocalDateTime beforeTime = to == null ? LATEST : to;
+    // Long.MIN_VALUE makes the upper time bound exclusive
+    Long beforeId = Long.MIN_VALUE;
+    if (cursor != null && !cursor.isBlank()) {
+      KeysetCursor key = KeysetCursor.decode(cursor);
+      beforeTime = key.getTimestamp();
+      beforeId = key.getId();
+    }
+    // One extra row tells whether another page exists
+    List<OrderDTO> orders = orderRepository.findUserHistory(
+        userId, stockId, status, from == null ? EARLIEST : from, beforeTime,
+        beforeId, PageRequest.of(0, size + 1));
+    if (orders.size() <= size) {
+      return new OrderPage(orders, null);
+    }
+    OrderDTO last = orders.get(size - 1);
+    return new OrderPage(
+        new ArrayList<>(orders.subList(0, size)),
+        new KeysetCursor(last.getTimestamp(), last.getId()).encode());
+  }
+
+  public List<OrderDTO> getOpenOrders(Long userId, String symbol) {
+    Long stockId = null;
+    if (symbol != null && !symbol.isBlank()) {
+      Optional<StockRef> stock = referenceDataService.getBySymbol(symbol);
+      if (stock.isEmpty()) {
+        return List.of();
+      }
+      stockId = stock.get().getStockId();
+    }
+    List<OpenOrder> open = orderBookService.getOpenOrders(userId, stockId);
+    List<OrderDTO> orders = new ArrayList<>(open.size());
+    for (OpenOrder order : open) {
+      String stockSymbol = referenceDataService.getById(order.getStockId())
+                               .map(StockRef::getSymbol)
+                               .orElse(null);
+      orders.add(new OrderDTO(order.getOrderId(), stockSymbol,
+                              order.getType(), order.getStatus(),
+                              order.getPrice(), order.getQuantity(),
+                              order.getTimestamp()));
+    }
+    return orders;
+  }
+}
@@ -1,133 +1,93 @@
 package com.uiet.TradingApp.service;
 
+import com.uiet.TradingApp.engine.BookOrder;
+import com.uiet.TradingApp.engine.JournalRecord;
+import com.uiet.TradingApp.engine.OrderBook;
+import com.uiet.TradingApp.engine.PriceTicks;
+import com.uiet.TradingApp.engine.SessionStats;
 import com.uiet.TradingApp.entity.Enum.OrderStatus;
 import com.uiet.TradingApp.entity.Enum.OrderType;
 import com.uiet.TradingApp.entity.Order;
-import com.uiet.TradingApp.entity.Stock;
-import com.uiet.TradingApp.repository.OrderRepository;
-import java.math.BigDecimal;
-import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+// Matches an accepted order against the resident book. Fills are written to
+// the journal and projected into the database asynchronously once the journal
+// has forced them to disk, so this does no database round trips.
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderMatchingService {
-  private final TradeService tradeService;
-  private final OrderRepository orderRepository;
+  private final OrderBookService orderBookService;
+  private final JournalService journalService;
+  private final MatchingMetrics matchingMetrics;
+  private final MarketDepthService marketDepthService;
+  private final MarketStateService marketStateService;
 
-  @Transactional
   public void buyOrderMatcher(Order buyOrder) {
-
-    Long neededStocks = buyOrder.getQuantity();
-    Long fulfilledStocks = 0L;
-    List<OrderStatus> status =
-        List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
-    List<Order> sellOrders = buyOrderMatcherHelper(
-        buyOrder.getStock(), OrderType.SELL, status, buyOrder.getPrice());
-    int i = 0;
-    while (fulfilledStocks < neededStocks && i < sellOrders.size()) {
-      Order sellOrder = sellOrders.get(i);
-      Long currentOrderQuantity = sellOrder.getQuantity();
-      if (currentOrderQuantity + fulfilledStocks <=
-          neededStocks) { // FULLY FILLED sellOrder
-        fulfilledStocks += currentOrderQuantity;
-        sellOrder.setStatus(OrderStatus.FILLED);
-        log.info("INFO: FULLY FILLED Sell Order {}", sellOrder.getId());
-        orderRepository.save(sellOrder);
-        tradeService.newEntry(tradeService.newTrade(
-            buyOrder.getUser(), sellOrder.getUser(), buyOrder.getStock(),
-            sellOrder.getQuantity(), sellOrder.getPrice()));
-
-      } else if (currentOrderQuantity + fulfilledStocks >
-                 neededStocks) { // PARTIALLY FILLED sellOrder
-        sellOrder.setStatus(OrderStatus.PARTIALLY_FILLED);
-        log.info("INFO: PARTIALLY FILLED Sell Order {}", sellOrder.getId());
-        Long quantity = currentOrderQuantity - (neededStocks - fulfilledStocks);
-        Long tradedQty = neededStocks - fulfilledStocks;
-        sellOrder.setQuantity(quantity);
-        orderRepository.save(sellOrder);
-        tradeService.newEntry(tradeService.newTrade(
-            buyOrder.getUser(), sellOrder.getUser(), buyOrder.getStock(),
-            tradedQty, sellOrder.getPrice()));
-        fulfilledStocks = neededStocks;
-      }
-      i++;
-    }
-    if (fulfilledStocks.equals(neededStocks)) {
-      buyOrder.setStatus(OrderStatus.FILLED);
-      log.info("INFO: FULLY FILLED Buy Order {}", buyOrder.getId());
-    } else if (fulfilledStocks > 0L && fulfilledStocks < neededStocks) {
-      buyOrder.setStatus(OrderStatus.PARTIALLY_FILLED);
-      buyOrder.setQuantity(neededStocks - fulfilledStocks);
-      log.info("INFO: PARTIALLY FILLED Buy Order {}", buyOrder.getId());
-    }
-    orderRepository.save(buyOrder);
+    match(buyOrder, OrderType.SELL);
   }
 
-  @Transactional
   public void sellOrderMatcher(Order sellOrder) {
-    Long sellingStocks = sellOrder.getQuantity();
-    Long soldStocks = 0L;
-    List<OrderStatus> status =
-        List.of(OrderStatus.PENDING, OrderStatus.PARTIALLY_FILLED);
-    List<Order> buyOrders = sellOrderMatcherHelper(
-        sellOrder.getStock(), OrderType.BUY, status, sellOrder.getPrice());
-
-    int i = 0;
-    while (soldStocks < sellingStocks && i < buyOrders.size()) {
-      Order buyOrder = buyOrders.get(i);
-      Long currentOrderQuantity = buyOrder.getQuantity();
-      if (currentOrderQuantity + soldStocks <= sellingStocks) { // FULLY FILLED
-        buyOrder.setStatus(OrderStatus.FILLED);
-        log.info("INFO: FULLY FILLED Buy Order {}", buyOrder.getId());
-        orderRepository.save(buyOrder);
-        tradeService.newEntry(tradeService.newTrade(
-            buyOrder.getUser(), sellOrder.getUser(), buyOrder.getStock(),
-            sellOrder.getQuantity(), sellOrder.getPrice()));
-        soldStocks += currentOrderQuantity;
-      } else if (currentOrderQuantity + soldStocks >
-                 sellingStocks) { // PARTIALLY FILLED
-        buyOrder.setStatus(OrderStatus.PARTIALLY_FILLED);
-        log.info("INFO: PARTIALLY FILLED Buy Order {}", buyOrder.getId());
-        buyOrder.setQuantity(currentOrderQuantity -
-                             (sellingStocks - soldStocks));
+    match(sellOrder, OrderType.BUY);
+  }
 
-        tradeService.newEntry(tradeService.newTrade(
-            buyOrder.getUser(), sellOrder.getUser(), buyOrder.getStock(),
-            sellOrder.getQuantity(), buyOrder.getPrice()));
-        orderRepository.save(buyOrder);
-        soldStocks = sellingStocks;
+  private void match(Order order, OrderType restingSide) {
+    long start = System.nanoTime();
+    int fills = 0;
+    OrderBook book = orderBookService.getBook(order.getStock().getId());
+    long limit = PriceTicks.toTicks(order.getPrice(),
+                                    PriceTicks.scaleOf(order.getStock()));
+    BookOrder incoming = orderBookService.toBookOrder(order, limit);
+    SessionStats sessionStats =
+        marketStateService.getSessionStats(order.getStock().getId());
+    long now = System.currentTimeMillis();
+    publish(JournalRecord.accepted(incoming, now));
+    BookOrder resting;
+    while (incoming.getQuantity() > 0L &&
+           (resting = book.bestCrossing(restingSide, limit)) != null) {
+      long tradedQty = Math.min(resting.getQuantity(), incoming.getQuantity());
+      orderBookService.fill(book, resting, tradedQty);
+      incoming.setQuantity(incoming.getQuantity() - tradedQty);
+      fills++;
+      if (sessionStats != null) {
+        sessionStats.record(resting.getPrice(), tradedQty);
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("DEBUG: Filled {} of {} Order {} at {}", tradedQty,
+                  restingSide, resting.getOrderId(), resting.getPrice());
       }
-      i++;
+      BookOrder buy = restingSide == OrderType.SELL ? incoming : resting;
+      BookOrder sell = restingSide == OrderType.SELL ? resting : incoming;
+      publish(
+          JournalRecord.fill(buy, sell, resting.getPrice(), tradedQty, now));
+      // Kept current so a failure part way knows what is still unfilled
+      order.setQuantity(incoming.getQuantity());
     }
-    if (soldStocks.equals(sellingStocks)) {
-      sellOrder.setStatus(OrderStatus.FILLED);
-      log.info("INFO: FULLY FILLED Sell Order {}", sellOrder.getId());
-    } else if (soldStocks > 0L && soldStocks < sellingStocks) {
-      sellOrder.setStatus(OrderStatus.PARTIALLY_FILLED);
-      sellOrder.setQuantity(sellingStocks - soldStocks);
-      log.info("INFO: PARTIALLY FILLED Sell Order {}", sellOrder.getId());
+    if (incoming.getQuantity() == 0L) {
+      order.setStatus(OrderStatus.FILLED);
+      if (log.isDebugEnabled()) {
+        log.debug("DEBUG: FULLY FILLED {} Order {}", order.getType(),
+                  order.getId());
+      }
+    } else {
+      if (fills > 0) {
+        order.setStatus(OrderStatus.PARTIALLY_FILLED);
+        if (log.isDebugEnabled()) {
+          log.debug("DEBUG: PARTIALLY FILLED {} Order {}", order.getType(),
+                    order.getId());
+        }
+      }
+      orderBookService.rest(book, incoming, order);
     }
-    orderRepository.save(sellOrder);
-  }
-
-  public List<Order> buyOrderMatcherHelper(Stock stock, OrderType type,
-                                           List<OrderStatus> status,
-                                           BigDecimal price) {
-    return orderRepository
-        .findByStockAndTypeAndStatusInAndPriceLessThanEqualOrderByPriceAsc(
-            stock, type, status, price);
+    order.setQuantity(incoming.getQuantity());
+    marketDepthService.publishChanges(order.getStock());
+    matchingMetrics.recordMatch(order.getStock(), System.nanoTime() - start,
+                                fills);
   }
 
-  public List<Order> sellOrderMatcherHelper(Stock stock, OrderType type,
-                                            List<OrderStatus> status,
-                                            BigDecimal price) {
-    return orderRepository
-        .findByStockAndTypeAndStatusInAndPriceGreaterThanEqualOrderByPriceDesc(
-            stock, type, status, price);
+  private void publish(JournalRecord record) {
+    journalService.append(record);
   }
 }
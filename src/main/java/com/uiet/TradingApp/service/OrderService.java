@@ -1,19 +1,34 @@
 package com.uiet.TradingApp.service;
 
 import com.uiet.TradingApp.DTO.NewOrder;
+import com.uiet.TradingApp.DTO.OrderResult;
+import com.uiet.TradingApp.engine.BookOrder;
+import com.uiet.TradingApp.engine.JournalRecord;
+import com.uiet.TradingApp.engine.PriceTicks;
 import com.uiet.TradingApp.entity.Enum.OrderStatus;
 import com.uiet.TradingApp.entity.Enum.OrderType;
+import com.uiet.TradingApp.entity.Enum.TimeInForce;
 import com.uiet.TradingApp.entity.Order;
 import com.uiet.TradingApp.entity.Stock;
 import com.uiet.TradingApp.entity.User;
 import com.uiet.TradingApp.repository.OrderRepository;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Slf4j
 @Service
@@ -23,45 +38,254 @@ public class OrderService {
   private final OrderRepository orderRepository;
   private final UserService userService;
   private final PortfolioService portfolioService;
-  private final StockService stockService;
+  private final ReferenceDataService referenceDataService;
   private final OrderMatchingService orderMatchingService;
+  private final OrderBookService orderBookService;
+  private final MatchingSequencer matchingSequencer;
+  private final JournalService journalService;
+  private final TransactionTemplate transactionTemplate;
+  private final MatchingMetrics matchingMetrics;
+  private final MarketDepthService marketDepthService;
 
-  @Transactional
+  @Value("${order.batch-max-size:500}") private int batchMaxSize;
+
+  public boolean submitSellOrder(Order order) {
+    return sequence(order, () -> placeSellOrder(order));
+  }
+
+  public void submitBuyOrder(Order order) {
+    sequence(order, () -> {
+      placeBuyOrder(order);
+      return null;
+    });
+  }
+
+  public void submitCancelOrder(Order order) {
+    sequence(order, () -> {
+      cancelOrder(order);
+      return null;
+    });
+  }
+
+  private <T> T sequence(Order order, Supplier<T> action) {
+    long start = System.nanoTime();
+    try {
+      T result = matchingSequencer.await(
+          matchingSequencer.submit(order.getStock().getId(), action));
+      journalService.awaitDurable(journalService.getLastSequence());
+      return result;
+    } finally {
+      matchingMetrics.recordSubmitToAck(order.getStock(),
+                                        System.nanoTime() - start);
+    }
+  }
+
+  // The user and stocks are resolved once and funds and holdings for the
+  // whole batch are reserved in one transaction. Every order is then handed
+  // to its shard before any is awaited, so the shards match them in parallel.
+  public List<OrderResult> submitBatch(String username,
+                                       List<NewOrder> newOrders) {
+    if (newOrders == null || newOrders.isEmpty()) {
+      throw new RuntimeException("Batch is empty");
+    }
+    if (newOrders.size() > batchMaxSize) {
+      throw new RuntimeException("Batch is larger than " + batchMaxSize);
+    }
+    User user = userService.getUserByUsername(username).orElseThrow(
+        () -> new RuntimeException("User not found"));
+
+    OrderResult[] results = new OrderResult[newOrders.size()];
+    List<Order> orders = new ArrayList<>();
+    List<Integer> positions = new ArrayList<>();
+    for (int i = 0; i < newOrders.size(); i++) {
+      NewOrder newOrder = newOrders.get(i);
+      try {
+        Stock stock =
+            referenceDataService.getBySymbol(newOrder.getStockSymbol())
+                .map(StockRef::toStock)
+                .orElseThrow(() -> new RuntimeException("Stock not found"));
+        if (newOrder.getType() == null) {
+          throw new RuntimeException("Order type is required");
+        }
+        Order order = Order.builder()
+                          .stock(stock)
+                          .user(user)
+                          .quantity(newOrder.getQuantity())
+                          .price(newOrder.getPrice())
+                          .type(newOrder.getType())
+                          .timeInForce(timeInForceOf(newOrder))
+                          .status(OrderStatus.PENDING)
+                          .build();
+        validateOrder(order);
+        orders.add(order);
+        positions.add(i);
+      } catch (RuntimeException e) {
+        results[i] = OrderResult.builder()
+                         .stockSymbol(newOrder.getStockSymbol())
+                         .type(newOrder.getType())
+                         .error(e.getMessage())
+                         .build();
+      }
+    }
+    if (!orders.isEmpty()) {
+      transactionTemplate.executeWithoutResult(
+          status -> acceptBatch(user, orders));
+    }
+
+    long start = System.nanoTime();
+    List<CompletableFuture<Void>> futures = new ArrayList<>(orders.size());
+    // Set on the shard before matching, read here once the future completes
+    AtomicIntegerArray started = new AtomicIntegerArray(orders.size());
+    for (int i = 0; i < orders.size(); i++) {
+      Order order = orders.get(i);
+      int index = i;
+      futures.add(matchingSequencer.submit(order.getStock().getId(), () -> {
+        started.set(index, 1);
+        try {
+          if (order.getType() == OrderType.BUY) {
+            orderMatchingService.buyOrderMatcher(order);
+          } else {
+            orderMatchingService.sellOrderMatcher(order);
+          }
+        } catch (RuntimeException e) {
+          abandonOrder(order);
+          throw e;
+        }
+        return null;
+      }));
+    }
+    RuntimeException[] errors = new RuntimeException[orders.size()];
+    for (int i = 0; i < orders.size(); i++) {
+      try {
+        matchingSequencer.await(futures.get(i));
+      } catch (RuntimeException e) {
+        errors[i] = e;
+      }
+    }
+    // One group commit covers the whole batch
+    journalService.awaitDurable(journalService.getLastSequence());
+    for (int i = 0; i < orders.size(); i++) {
+      Order order = orders.get(i);
+      OrderResult.OrderResultBuilder result =
+          OrderResult.builder()
+              .orderId(order.getId())
+              .stockSymbol(order.getStock().getSymbol())
+              .type(order.getType());
+      RuntimeException e = errors[i];
+      if (e == null) {
+        result.status(order.getStatus()).remainingQuantity(order.getQuantity());
+      } else {
+        log.error("ERROR: Batch order {} failed to match", order.getId(), e);
+        if (futures.get(i).isCompletedExceptionally()) {
+          if (started.get(i) == 0) {
+            // Never reached its shard, so nothing is resting to cancel later
+            transactionTemplate.executeWithoutResult(status -> {
+              order.setStatus(OrderStatus.CANCELLED);
+              releaseReservation(order);
+              orderRepository.save(order);
+            });
+          }
+          result.status(order.getStatus())
+              .remainingQuantity(order.getQuantity());
+        }
+        result.error(e.getMessage());
+      }
+      matchingMetrics.recordSubmitToAck(order.getStock(),
+                                        System.nanoTime() - start);
+      results[positions.get(i)] = result.build();
+    }
+    log.info("INFO: Placed {} of {} batch orders for {}", orders.size(),
+             newOrders.size(), username);
+    return Arrays.asList(results);
+  }
+
+  // All or nothing: the batch is rejected if its total cost or its sells of
+  // any one stock exceed what the user has. Each check is the guarded update
+  // that takes the reservation, so there is no separate read to race with.
+  private void acceptBatch(User user, List<Order> orders) {
+    BigDecimal buyValue = BigDecimal.ZERO;
+    // Sorted so concurrent batches lock the user's positions in one order
+    Map<Long, Long> sellQuantities = new TreeMap<>();
+    Map<Long, Stock> sellStocks = new HashMap<>();
+    for (Order order : orders) {
+      Stock stock = order.getStock();
+      if (order.getType() == OrderType.BUY) {
+        int scale = PriceTicks.scaleOf(stock);
+        buyValue = buyValue.add(PriceTicks.toPrice(
+            PriceTicks.notional(PriceTicks.toTicks(order.getPrice(), scale),
+                                order.getQuantity()),
+            scale));
+      } else {
+        sellQuantities.merge(stock.getId(), order.getQuantity(), Long::sum);
+        sellStocks.put(stock.getId(), stock);
+      }
+    }
+    if (buyValue.signum() > 0 &&
+        !userService.tryDeductBalance(user, buyValue)) {
+      throw new RuntimeException("Insufficient balance for batch");
+    }
+    sellQuantities.forEach((stockId, quantity) -> {
+      if (!portfolioService.tryRemoveStocks(user, quantity,
+                                            sellStocks.get(stockId))) {
+        throw new RuntimeException("Insufficient holdings of " +
+                                   sellStocks.get(stockId).getSymbol() +
+                                   " for batch");
+      }
+    });
+    LocalDateTime now = LocalDateTime.now();
+    for (Order order : orders) {
+      order.setTimestamp(now);
+    }
+    orderRepository.saveAll(orders);
+  }
+
+  // Holdings are reserved and the order row committed before matching, the
+  // fills themselves go through the journal
   public boolean placeSellOrder(Order order) {
-    Long stockQuantity = portfolioService.getUserStockQuantity(
-        order.getUser(), order.getStock());
-    if (stockQuantity >= order.getQuantity()) {
-      order.setType(OrderType.SELL);
-      order.setStatus(OrderStatus.PENDING);
-      order.setTimestamp(LocalDateTime.now());
-      log.info("INFO: Placing sell order for {}", order.getStock().getSymbol());
-      portfolioService.removeStocks(order.getUser(), order.getQuantity(),
-                                    order.getStock());
-      orderRepository.save(order);
+    boolean accepted =
+        transactionTemplate.execute(status -> acceptSellOrder(order));
+    if (accepted) {
       orderMatchingService.sellOrderMatcher(order);
-      return true;
     }
-    return false;
+    return accepted;
   }
 
-  @Transactional
   public void placeBuyOrder(Order order) {
-    log.info("Trying to place buy order");
-    BigDecimal orderValue =
-        order.getPrice().multiply(BigDecimal.valueOf(order.getQuantity()));
-    BigDecimal userBalance =
-        userService.getUserBalance(order.getUser().getUserName());
-    log.info("User balance: {}, Order value: {}", userBalance, orderValue);
-    if (orderValue.compareTo(userBalance) > 0) {
-      throw new RuntimeException("Insufficient balance");
+    transactionTemplate.executeWithoutResult(status -> acceptBuyOrder(order));
+    orderMatchingService.buyOrderMatcher(order);
+  }
+
+  // The guarded update both checks the holding and reserves it; the user's
+  // position row lock is the only thing two sells of the same stock share
+  private boolean acceptSellOrder(Order order) {
+    validateOrder(order);
+    if (!portfolioService.tryRemoveStocks(order.getUser(), order.getQuantity(),
+                                          order.getStock())) {
+      return false;
     }
+    order.setType(OrderType.SELL);
+    order.setStatus(OrderStatus.PENDING);
+    order.setTimestamp(LocalDateTime.now());
+    log.info("INFO: Placing sell order for {}", order.getStock().getSymbol());
+    orderRepository.save(order);
+    return true;
+  }
+
+  private void acceptBuyOrder(Order order) {
+    log.info("Trying to place buy order");
+    int scale = PriceTicks.scaleOf(order.getStock());
+    long orderValue =
+        PriceTicks.notional(validateOrder(order), order.getQuantity());
+    log.info("Order value: {}", PriceTicks.toPrice(orderValue, scale));
+    // Reserves the full limit value; a fill at a better price refunds the
+    // difference when it is projected
+    userService.deductBalance(order.getUser(),
+                              PriceTicks.toPrice(orderValue, scale));
     order.setType(OrderType.BUY);
     order.setStatus(OrderStatus.PENDING);
     order.setTimestamp(LocalDateTime.now());
-    userService.deductBalance(order.getUser(), orderValue);
     log.info("INFO: Placing buy order for {}", order.getStock().getSymbol());
     orderRepository.save(order);
-    orderMatchingService.buyOrderMatcher(order);
   }
 
   public List<Order> ordersFromTime(LocalDateTime fromTime) {
@@ -73,34 +297,144 @@ public class OrderService {
     return orderRepository.findByUserOrderByTimestampDesc(user);
   }
 
-  @Transactional
   public void cancelOrder(Order order) {
+    BookOrder cancelled =
+        transactionTemplate.execute(status -> cancelInBook(order));
+    journalService.append(
+        JournalRecord.cancel(cancelled, System.currentTimeMillis()));
+    marketDepthService.publishChanges(order.getStock());
+  }
+
+  // Runs on the shard when matching threw part way: takes back whatever is
+  // left resting and releases the reservation for the unfilled quantity.
+  // Fills already journalled stand and are projected as usual.
+  private void abandonOrder(Order order) {
+    try {
+      BookOrder resting = transactionTemplate.execute(status -> {
+        BookOrder removed = orderBookService.remove(order);
+        if (removed != null) {
+          order.setQuantity(removed.getQuantity());
+        }
+        if (order.getQuantity() > 0L) {
+          order.setStatus(OrderStatus.CANCELLED);
+          releaseReservation(order);
+          orderRepository.save(order);
+        }
+        return removed;
+      });
+      if (resting != null) {
+        journalService.append(
+            JournalRecord.cancel(resting, System.currentTimeMillis()));
+        marketDepthService.publishChanges(order.getStock());
+      }
+    } catch (RuntimeException e) {
+      log.error("ERROR: Failed to cancel order {} after a failed match",
+                order.getId(), e);
+    }
+  }
+
+  private BookOrder cancelInBook(Order order) {
     OrderStatus status = order.getStatus();
     if (status.equals(OrderStatus.FILLED) ||
         status.equals(OrderStatus.CANCELLED)) {
       log.error("ERROR: Order {} already filled or cancelled", order.getId());
       throw new RuntimeException("Order already filled or cancelled");
+    }
+    BookOrder resting = orderBookService.remove(order);
+    if (resting == null) {
+      log.error("ERROR: Order {} is no longer resting", order.getId());
+      throw new RuntimeException("Order already filled or cancelled");
     } else {
-      OrderType type = order.getType();
       order.setStatus(OrderStatus.CANCELLED);
+      order.setQuantity(resting.getQuantity());
       log.info("INFO: Cancelled order for {}", order.getStock().getSymbol());
-      if (type.equals(OrderType.BUY)) {
-        userService.addBalance(
-            order.getUser(),
-            order.getPrice().multiply(BigDecimal.valueOf(order.getQuantity())));
-      } else {
-        portfolioService.addStocks(order.getUser(), order.getQuantity(),
-                                   order.getStock());
-      }
+      releaseReservation(order);
     }
     orderRepository.save(order);
+    return resting;
+  }
+
+  // Cancels resting orders of one stock as cancelOrder would, with the whole
+  // chunk in one transaction and the refunds merged per user. Orders filled
+  // or cancelled since they were picked are skipped. Must run on the stock's
+  // shard; returns how many were expired.
+  public int expireOrders(Long stockId, List<Long> orderIds) {
+    StockRef stock = referenceDataService.getById(stockId).orElseThrow(
+        () -> new RuntimeException("Stock not found"));
+    int scale = stock.getPriceScale() == null ? PriceTicks.DEFAULT_SCALE
+                                              : stock.getPriceScale();
+    List<BookOrder> expired = transactionTemplate.execute(status -> {
+      List<BookOrder> removed = new ArrayList<>();
+      // Sorted so concurrent updates lock the users in one order
+      Map<Long, BigDecimal> refunds = new TreeMap<>();
+      Map<Long, Long> shares = new TreeMap<>();
+      for (Long orderId : orderIds) {
+        BookOrder resting = orderBookService.remove(stockId, orderId);
+        if (resting == null) {
+          continue;
+        }
+        orderRepository.updateFill(orderId, resting.getQuantity(),
+                                   OrderStatus.CANCELLED);
+        if (resting.getType() == OrderType.BUY) {
+          refunds.merge(resting.getUserId(),
+                        PriceTicks.toPrice(
+                            PriceTicks.notional(resting.getPrice(),
+                                                resting.getQuantity()),
+                            scale),
+                        BigDecimal::add);
+        } else {
+          shares.merge(resting.getUserId(), resting.getQuantity(), Long::sum);
+        }
+        removed.add(resting);
+      }
+      refunds.forEach(userService::applyBalanceDelta);
+      shares.forEach((userId, quantity)
+                         -> portfolioService.releaseStocks(userId, stockId,
+                                                           quantity));
+      return removed;
+    });
+    long now = System.currentTimeMillis();
+    for (BookOrder resting : expired) {
+      journalService.append(JournalRecord.cancel(resting, now));
+    }
+    if (!expired.isEmpty()) {
+      marketDepthService.publishChanges(stock.toStock());
+      log.info("INFO: Expired {} orders for {}", expired.size(),
+               stock.getSymbol());
+    }
+    return expired.size();
+  }
+
+  // Returns the funds or holdings still reserved for the order's quantity
+  private void releaseReservation(Order order) {
+    if (order.getType().equals(OrderType.BUY)) {
+      userService.addBalance(
+          order.getUser(),
+          order.getPrice().multiply(BigDecimal.valueOf(order.getQuantity())));
+    } else {
+      portfolioService.addStocks(order.getUser(), order.getQuantity(),
+                                 order.getStock());
+    }
   }
 
   public void saveEntry(Order order) { orderRepository.save(order); }
 
+  // Returns the limit price in ticks
+  private long validateOrder(Order order) {
+    if (order.getQuantity() == null || order.getQuantity() <= 0L) {
+      throw new RuntimeException("Quantity must be positive");
+    }
+    if (order.getPrice() == null || order.getPrice().signum() <= 0) {
+      throw new RuntimeException("Price must be positive");
+    }
+    return PriceTicks.toTicks(order.getPrice(),
+                              PriceTicks.scaleOf(order.getStock()));
+  }
+
   public Order createOrder(NewOrder newOrder) {
     Stock stock =
-        stockService.getStockBySymbol(newOrder.getStockSymbol())
+        referenceDataService.getBySymbol(newOrder.getStockSymbol())
+            .map(StockRef::toStock)
             .orElseThrow(() -> new RuntimeException("Stock not found"));
     User user = userService.getUserByUsername(newOrder.getUsername())
                     .orElseThrow(() -> new RuntimeException("User not found"));
@@ -110,8 +444,14 @@ public class OrderService {
         .quantity(newOrder.getQuantity())
         .price(newOrder.getPrice())
         .type(newOrder.getType())
+        .timeInForce(timeInForceOf(newOrder))
         .status(OrderStatus.PENDING)
         .timestamp(LocalDateTime.now())
         .build();
   }
+
+  private static TimeInForce timeInForceOf(NewOrder newOrder) {
+    return newOrder.getTimeInForce() == null ? TimeInForce.GTC
+                                             : newOrder.getTimeInForce();
+  }
 }
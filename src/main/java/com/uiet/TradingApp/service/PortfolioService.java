@@ -23,6 +23,7 @@ public class PortfolioService {
   private final PortfolioRepository portfolioRepository;
   private final UserService userService;
   private final StockService stockService;
+  private final MarketStateService marketStateService;
 
   public Long getUserStockQuantity(User user, Stock stock) {
 
@@ -34,50 +35,64 @@ public class PortfolioService {
     return 0L;
   }
 
+  // Checked and applied in one statement, so concurrent sells cannot both
+  // take the same shares
   @Transactional
   public void removeStocks(User user, Long numberOfStocks, Stock stock) {
-    Optional<Portfolio> opPortfolio =
-        portfolioRepository.findByUserAndStock(user, stock);
-    if (opPortfolio.isPresent()) {
-      Portfolio portfolio = opPortfolio.get();
-      if (numberOfStocks <= portfolio.getQuantity()) {
-        portfolio.setQuantity(portfolio.getQuantity() - numberOfStocks);
-        log.info("INFO: Removing {} stocks for user {}", numberOfStocks,
-                 user.getUserName());
-        portfolioRepository.save(portfolio);
-        if (portfolio.getQuantity() == 0L) {
-          log.info("INFO: Deleting portfolio {} for user {}", portfolio.getId(),
-                   user.getUserName());
-          portfolioRepository.delete(portfolio);
-        }
-      } else {
+    if (!tryRemoveStocks(user, numberOfStocks, stock)) {
+      if (portfolioRepository.existsByUser_IdAndStock_Id(user.getId(),
+                                                         stock.getId())) {
         log.error("ERROR: Not enough stocks for user {}", user.getUserName());
         throw new RuntimeException("Not enough stocks");
       }
-    } else {
       log.error("ERROR: Portfolio not found for user {}", user.getUserName());
       throw new RuntimeException("Portfolio not found");
     }
   }
 
+  // False, with nothing changed, when the user holds fewer shares
+  @Transactional
+  public boolean tryRemoveStocks(User user, Long numberOfStocks, Stock stock) {
+    if (portfolioRepository.removeQuantity(user.getId(), stock.getId(),
+                                           numberOfStocks) == 0) {
+      return false;
+    }
+    log.info("INFO: Removing {} stocks for user {}", numberOfStocks,
+             user.getUserName());
+    if (portfolioRepository.deleteEmpty(user.getId(), stock.getId()) > 0) {
+      log.info("INFO: Deleted empty portfolio for user {}", user.getUserName());
+    }
+    return true;
+  }
+
   @Transactional
   public void addStocks(User user, Long numberOfStocks, Stock stock) {
-    Optional<Portfolio> portfolio =
-        portfolioRepository.findByUserAndStock(user, stock);
-    if (portfolio.isPresent()) {
-      portfolio.get().setQuantity(portfolio.get().getQuantity() +
-                                  numberOfStocks);
-      log.info("INFO: Adding {} stocks for user {}", numberOfStocks,
-               user.getUserName());
-      portfolioRepository.save(portfolio.get());
-    } else {
+    log.info("INFO: Adding {} stocks for user {}", numberOfStocks,
+             user.getUserName());
+    applyPositionDelta(user.getId(), stock.getId(), numberOfStocks,
+                       currentPrice(stock));
+  }
+
+  // Gives back shares a sell order reserved but will no longer trade
+  @Transactional
+  public void releaseStocks(Long userId, Long stockId, Long numberOfStocks) {
+    applyPositionDelta(userId, stockId, numberOfStocks,
+                       marketStateService.getLastPrice(stockId).orElse(
+                           BigDecimal.ZERO));
+  }
+
+  // Atomic delta on an existing position, otherwise a new one is created
+  @Transactional
+  public void applyPositionDelta(Long userId, Long stockId, Long delta,
+                                 BigDecimal averagePrice) {
+    if (portfolioRepository.addQuantity(userId, stockId, delta) == 0) {
       Portfolio newPortfolio = Portfolio.builder()
-                                   .user(user)
-                                   .stock(stock)
-                                   .quantity(numberOfStocks)
-                                   .averagePricePaid(stock.getCurrentPrice())
+                                   .user(userService.getReference(userId))
+                                   .stock(stockService.getReference(stockId))
+                                   .quantity(delta)
+                                   .averagePricePaid(averagePrice)
                                    .build();
-      log.info("INFO: Creating new portfolio for user {}", user.getUserName());
+      log.info("INFO: Creating new portfolio for user {}", userId);
       portfolioRepository.save(newPortfolio);
     }
   }
@@ -127,13 +142,20 @@ public class PortfolioService {
   }
 
   public PortfolioDTO createDTO(Portfolio portfolio) {
+    BigDecimal currentPrice = currentPrice(portfolio.getStock());
     return PortfolioDTO.builder()
         .stockSymbol(portfolio.getStock().getSymbol())
         .quantity(portfolio.getQuantity())
         .avgPrice(portfolio.getAveragePricePaid())
-        .currentPrice(portfolio.getStock().getCurrentPrice())
-        .totalValue(portfolio.getStock().getCurrentPrice().multiply(
-            BigDecimal.valueOf(portfolio.getQuantity())))
+        .currentPrice(currentPrice)
+        .totalValue(
+            currentPrice.multiply(BigDecimal.valueOf(portfolio.getQuantity())))
         .build();
   }
+
+  // The stocks row trails the resident market state by up to one flush
+  private BigDecimal currentPrice(Stock stock) {
+    return marketStateService.getLastPrice(stock.getId())
+        .orElseGet(stock::getCurrentPrice);
+  }
 }
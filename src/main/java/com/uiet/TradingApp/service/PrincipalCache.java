@@ -0,0 +1,118 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Verified claims and UserDetails per token, kept until the token expires.
+// A cached token authenticates with one map lookup and no database query.
+// Entries for a user are dropped whenever UserService changes that user.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PrincipalCache {
+  private final JwtUtil jwtUtil;
+  private final UserDetailsService userDetailsService;
+
+  @Value("${auth.principal-cache-size:10000}") private int maxSize;
+
+  private final Map<String, CachedPrincipal> byToken =
+      new ConcurrentHashMap<>();
+  // Bumped on every invalidation so a load that raced one is not kept
+  private final AtomicLong invalidations = new AtomicLong();
+
+  @Getter
+  @AllArgsConstructor
+  public static class CachedPrincipal {
+    private final Claims claims;
+    private final UserDetails userDetails;
+    private final long expiresAtMillis;
+
+    public String getUsername() { return claims.getSubject(); }
+
+    private boolean isExpired(long now) { return now >= expiresAtMillis; }
+  }
+
+  // Throws if the token is invalid, expired or its user no longer exists
+  public CachedPrincipal resolve(String token) {
+    long now = System.currentTimeMillis();
+    CachedPrincipal cached = byToken.get(token);
+    if (cached != null) {
+      if (!cached.isExpired(now)) {
+        return cached;
+      }
+      byToken.remove(token, cached);
+    }
+    long epoch = invalidations.get();
+    Claims claims = jwtUtil.parseClaims(token);
+    UserDetails userDetails =
+        userDetailsService.loadUserByUsername(claims.getSubject());
+    CachedPrincipal principal = new CachedPrincipal(
+        claims, userDetails, claims.getExpiration().getTime());
+    if (byToken.size() >= maxSize) {
+      evict(now);
+    }
+    byToken.put(token, principal);
+    if (invalidations.get() != epoch) {
+      byToken.remove(token, principal);
+    }
+    return principal;
+  }
+
+  // Runs after the surrounding transaction commits, so a concurrent reload
+  // cannot cache the user's old roles
+  public void invalidateUser(String username) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              evictUser(username);
+            }
+          });
+    } else {
+      evictUser(username);
+    }
+  }
+
+  private void evictUser(String username) {
+    invalidations.incrementAndGet();
+    if (byToken.values().removeIf(
+            principal -> principal.getUsername().equals(username))) {
+      log.info("INFO: Invalidated cached principals for {}", username);
+    }
+  }
+
+  public void invalidateToken(String token) { byToken.remove(token); }
+
+  @Scheduled(fixedDelayString = "${auth.principal-cache-sweep-ms:60000}")
+  public void sweep() {
+    byToken.values().removeIf(
+        principal -> principal.isExpired(System.currentTimeMillis()));
+  }
+
+  // Expired entries go first; if the cache is still full an arbitrary entry
+  // is dropped, which only costs its owner one re-parse
+  private void evict(long now) {
+    byToken.values().removeIf(principal -> principal.isExpired(now));
+    Iterator<String> it = byToken.keySet().iterator();
+    while (byToken.size() >= maxSize && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package com.uiet.TradingApp.service;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+// Shared store for multi-node deployments. Values are stored as JSON strings.
+// A Redis failure is treated as a miss so requests fall back to the database.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cache.type", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisCacheStore implements CacheStore {
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+
+  @Value("${cache.default-ttl-ms:300000}") private long defaultTtlMillis;
+  @Value("${cache.redis.key-prefix:trading:}") private String keyPrefix;
+
+  @Override
+  public <T> Optional<T> get(String key, Class<T> type) {
+    return read(key, objectMapper.constructType(type));
+  }
+
+  @Override
+  public <T> Optional<List<T>> getList(String key, Class<T> elementType) {
+    return read(key, objectMapper.getTypeFactory().constructCollectionType(
+                         List.class, elementType));
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    put(key, value, Duration.ofMillis(defaultTtlMillis));
+  }
+
+  @Override
+  public void put(String key, Object value, Duration ttl) {
+    try {
+      redisTemplate.opsForValue().set(
+          keyPrefix + key, objectMapper.writeValueAsString(value), ttl);
+    } catch (Exception e) {
+      log.warn("WARN: Failed to cache {}", key, e);
+    }
+  }
+
+  // Logged as an error since the entry stays stale until its TTL runs out
+  @Override
+  public void evict(String key) {
+    try {
+      redisTemplate.delete(keyPrefix + key);
+    } catch (Exception e) {
+      log.error("ERROR: Failed to evict cached {}", key, e);
+    }
+  }
+
+  @Override
+  public boolean exists(String key) {
+    try {
+      return Boolean.TRUE.equals(redisTemplate.hasKey(keyPrefix + key));
+    } catch (Exception e) {
+      log.warn("WARN: Failed to check cached {}", key, e);
+      return false;
+    }
+  }
+
+  @Override
+  public boolean isShared() {
+    return true;
+  }
+
+  private <T> Optional<T> read(String key, JavaType type) {
+    try {
+      String json = redisTemplate.opsForValue().get(keyPrefix + key);
+      return json == null ? Optional.empty()
+                          : Optional.of(objectMapper.readValue(json, type));
+    } catch (Exception e) {
+      log.warn("WARN: Failed to read cached {}", key, e);
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.entity.Company;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.repository.StockRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Immutable snapshot of the symbol table, swapped as a whole whenever a stock
+// or company is created, changed or deleted. Readers never lock and never see a
+// half-built table. Each new snapshot is published as an application event.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReferenceDataService {
+  private final StockRepository stockRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final PlatformTransactionManager transactionManager;
+
+  private final AtomicReference<Snapshot> current =
+      new AtomicReference<>(new Snapshot(0L, Map.of(), Map.of()));
+
+  @Value
+  public static class StockRef {
+    Long stockId;
+    String symbol;
+    Integer priceScale;
+    Long companyId;
+    String companyName;
+    String sector;
+    Long totalStocks;
+
+    // Detached entity carrying only what order entry reads; JPA writes it
+    // as a foreign key without loading the row
+    public Stock toStock() {
+      Stock stock = new Stock();
+      stock.setId(stockId);
+      stock.setSymbol(symbol);
+      stock.setPriceScale(priceScale);
+      return stock;
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static final class Snapshot {
+    private final long version;
+    private final Map<String, StockRef> bySymbol;
+    private final Map<Long, StockRef> byId;
+
+    public Collection<StockRef> getStocks() { return byId.values(); }
+  }
+
+  private TransactionTemplate readTransaction;
+
+  @PostConstruct
+  public void load() {
+    // A fresh transaction, since reloads also run from afterCommit where the
+    // finished transaction's session is still bound
+    readTransaction = new TransactionTemplate(transactionManager);
+    readTransaction.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    readTransaction.setReadOnly(true);
+    reload();
+  }
+
+  public Snapshot getSnapshot() { return current.get(); }
+
+  public Optional<StockRef> getBySymbol(String symbol) {
+    return symbol == null ? Optional.empty()
+                          : Optional.ofNullable(
+                                current.get().getBySymbol().get(symbol));
+  }
+
+  public Optional<StockRef> getById(Long stockId) {
+    return stockId == null ? Optional.empty()
+                           : Optional.ofNullable(
+                                 current.get().getById().get(stockId));
+  }
+
+  // Rebuilt once the surrounding transaction commits, so the new rows are
+  // visible to the query
+  public void reloadAfterCommit() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              reload();
+            }
+          });
+    } else {
+      reload();
+    }
+  }
+
+  // Also picks up changes made through other nodes
+  @Scheduled(fixedDelayString = "${reference-data.refresh-ms:60000}",
+             initialDelayString = "${reference-data.refresh-ms:60000}")
+  public synchronized void reload() {
+    Map<String, StockRef> bySymbol = new HashMap<>();
+    Map<Long, StockRef> byId = new HashMap<>();
+    List<Stock> stocks =
+        readTransaction.execute(status -> stockRepository.findAllWithCompany());
+    for (Stock stock : stocks) {
+      Company company = stock.getCompany();
+      StockRef ref = new StockRef(
+          stock.getId(), stock.getSymbol(), stock.getPriceScale(),
+          company == null ? null : company.getId(),
+          company == null ? null : company.getName(),
+          company == null ? null : company.getSector(),
+          stock.getTotalStocks());
+      bySymbol.put(ref.getSymbol(), ref);
+      byId.put(ref.getStockId(), ref);
+    }
+    Snapshot previous = current.get();
+    if (previous.getVersion() > 0 && previous.getById().equals(byId)) {
+      return;
+    }
+    Snapshot snapshot = new Snapshot(previous.getVersion() + 1,
+                                     Map.copyOf(bySymbol), Map.copyOf(byId));
+    current.set(snapshot);
+    log.info("INFO: Reference data version {} with {} stocks",
+             snapshot.getVersion(), byId.size());
+    eventPublisher.publishEvent(snapshot);
+  }
+}
@@ -0,0 +1,136 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.engine.OpenOrder;
+import com.uiet.TradingApp.entity.Enum.TimeInForce;
+import com.uiet.TradingApp.repository.OrderRepository;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// End of day: expires every resting DAY order and starts a new session for
+// every stock, with the last price as close and next open and the session
+// stats reset. Orders are expired in chunks of session.roll-chunk-size, each
+// one task and one transaction on the stock's shard, so the shards roll their
+// stocks in parallel and matching carries on between chunks. At most
+// session.roll-max-in-flight tasks are queued at a time to leave room in the
+// shard rings. The roll runs on its own thread and waits for every task it
+// queued, however long the shards take, so it never holds up the scheduler.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SessionRollService {
+  private final OrderRepository orderRepository;
+  private final OrderService orderService;
+  private final MarketStateService marketStateService;
+  private final ReferenceDataService referenceDataService;
+  private final MatchingSequencer matchingSequencer;
+
+  @Value("${session.roll-chunk-size:500}") private int chunkSize;
+  @Value("${session.roll-max-in-flight:64}") private int maxInFlight;
+
+  private final Deque<CompletableFuture<Integer>> inFlight = new ArrayDeque<>();
+  private final AtomicBoolean rolling = new AtomicBoolean();
+  private final ExecutorService roller =
+      Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-roll");
+        thread.setDaemon(true);
+        return thread;
+      });
+  private int expired;
+  private int failed;
+
+  @Scheduled(cron = "${session.roll-cron:0 0 0 * * *}")
+  public void scheduleRoll() {
+    if (!rolling.compareAndSet(false, true)) {
+      log.warn("WARN: Previous session roll still running, skipping");
+      return;
+    }
+    roller.execute(() -> {
+      try {
+        roll();
+      } catch (Exception e) {
+        log.error("ERROR: Session roll failed", e);
+      } finally {
+        rolling.set(false);
+      }
+    });
+  }
+
+  @PreDestroy
+  public void stop() {
+    roller.shutdownNow();
+  }
+
+  public synchronized void roll() {
+    long start = System.nanoTime();
+    expired = 0;
+    failed = 0;
+    Map<Long, List<Long>> dayOrders = new HashMap<>();
+    for (OpenOrder order : orderRepository.findOpenOrdersByTimeInForce(
+             OrderBookService.OPEN_STATUS, TimeInForce.DAY)) {
+      dayOrders.computeIfAbsent(order.getStockId(), id -> new ArrayList<>())
+          .add(order.getOrderId());
+    }
+    List<StockRef> stocks = new ArrayList<>(
+        referenceDataService.getSnapshot().getStocks());
+    for (StockRef stock : stocks) {
+      Long stockId = stock.getStockId();
+      List<Long> orderIds = dayOrders.getOrDefault(stockId, List.of());
+      for (int from = 0; from < orderIds.size(); from += chunkSize) {
+        int to = Math.min(from + chunkSize, orderIds.size());
+        List<Long> chunk = List.copyOf(orderIds.subList(from, to));
+        submit(stockId, () -> orderService.expireOrders(stockId, chunk));
+      }
+      // Queued behind the expiries, so the new session starts without them
+      submit(stockId, () -> {
+        marketStateService.rollSession(stockId);
+        return 0;
+      });
+    }
+    while (!inFlight.isEmpty()) {
+      awaitOldest();
+    }
+    marketStateService.flush();
+    if (failed > 0) {
+      log.error("ERROR: {} session roll tasks failed", failed);
+    }
+    log.info("INFO: Rolled {} stocks and expired {} DAY orders in {} ms",
+             stocks.size(), expired,
+             TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  private void submit(Long stockId, Supplier<Integer> task) {
+    if (inFlight.size() >= maxInFlight) {
+      awaitOldest();
+    }
+    inFlight.add(matchingSequencer.submit(stockId, task));
+  }
+
+  // Waits without a timeout: a task still queued on a busy shard has not
+  // failed, it only counts as failed once the shard reports an error
+  private void awaitOldest() {
+    try {
+      expired += inFlight.poll().join();
+    } catch (CompletionException e) {
+      log.error("ERROR: Session roll task failed", e.getCause());
+      failed++;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.DTO.UnsettledTrade;
+import com.uiet.TradingApp.repository.TradeRepository;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// Settles projected trades off the matching path. Each batch is netted into
+// one balance delta per seller and one position delta per buyer and stock,
+// and applied in the same transaction that flips the trade flags.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SettlementService {
+  private final TradeRepository tradeRepository;
+  private final UserService userService;
+  private final PortfolioService portfolioService;
+  private final TransactionRetry transactionRetry;
+
+  @Value("${settlement.batch-size:1000}") private int batchSize;
+
+  @Scheduled(fixedDelayString = "${settlement.interval-ms:200}")
+  public void settlePending() {
+    try {
+      Integer settled;
+      do {
+        settled = transactionRetry.execute(status -> settleBatch());
+      } while (settled != null && settled == batchSize);
+    } catch (RuntimeException e) {
+      log.error("ERROR: Settlement batch failed, retrying on next run", e);
+    }
+  }
+
+  private int settleBatch() {
+    List<UnsettledTrade> trades =
+        tradeRepository.findUnsettled(PageRequest.of(0, batchSize));
+    if (trades.isEmpty()) {
+      return 0;
+    }
+
+    List<Long> balanceIds = new ArrayList<>();
+    List<Long> stockIds = new ArrayList<>();
+    // Sorted keys keep the row lock order stable across batches
+    Map<Long, BigDecimal> balanceDeltas = new TreeMap<>();
+    Map<Long, Map<Long, Position>> positionDeltas = new TreeMap<>();
+    for (UnsettledTrade trade : trades) {
+      if (!trade.isSentBalance()) {
+        balanceIds.add(trade.getId());
+        balanceDeltas.merge(
+            trade.getSellerId(),
+            trade.getPrice().multiply(BigDecimal.valueOf(trade.getQuantity())),
+            BigDecimal::add);
+      }
+      if (!trade.isSentStocks()) {
+        stockIds.add(trade.getId());
+        positionDeltas.computeIfAbsent(trade.getBuyerId(), k -> new TreeMap<>())
+            .computeIfAbsent(trade.getStockId(), k -> new Position())
+            .add(trade.getQuantity(), trade.getPrice());
+      }
+    }
+
+    // A short count means another settler got there first; roll back
+    if (!balanceIds.isEmpty() &&
+        tradeRepository.markBalanceSent(balanceIds) != balanceIds.size()) {
+      throw new RuntimeException("Trades settled concurrently, retrying");
+    }
+    if (!stockIds.isEmpty() &&
+        tradeRepository.markStocksSent(stockIds) != stockIds.size()) {
+      throw new RuntimeException("Trades settled concurrently, retrying");
+    }
+
+    balanceDeltas.forEach(userService::applyBalanceDelta);
+    positionDeltas.forEach(
+        (userId, stocks)
+            -> stocks.forEach(
+                (stockId, position)
+                    -> portfolioService.applyPositionDelta(
+                        userId, stockId, position.quantity,
+                        position.averagePrice())));
+    log.info("INFO: Settled {} trades into {} balance and {} position updates",
+             trades.size(), balanceDeltas.size(),
+             positionDeltas.values().stream().mapToInt(Map::size).sum());
+    return trades.size();
+  }
+
+  private static class Position {
+    private long quantity;
+    private BigDecimal notional = BigDecimal.ZERO;
+
+    private void add(long qty, BigDecimal price) {
+      quantity += qty;
+      notional = notional.add(price.multiply(BigDecimal.valueOf(qty)));
+    }
+
+    private BigDecimal averagePrice() {
+      return notional.divide(BigDecimal.valueOf(quantity),
+                             Math.max(notional.scale(), 2),
+                             RoundingMode.HALF_UP);
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.service.ReferenceDataService.Snapshot;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+// Ranked search over symbol, company name and sector. Queries of three or
+// more characters intersect trigram postings; shorter ones binary search a
+// sorted list of word prefixes. The index is immutable and rebuilt from each
+// new reference-data snapshot, so searches never lock or touch the database.
+// A rebuild is linear in the listings and only happens when the symbol table
+// actually changes, which is rare next to searches.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockSearchIndex {
+  private static final int GRAM = 3;
+
+  private final ReferenceDataService referenceDataService;
+
+  private volatile Index index = new Index(-1L, List.of());
+
+  @PostConstruct
+  public void init() {
+    onReferenceData(referenceDataService.getSnapshot());
+  }
+
+  @EventListener
+  public synchronized void onReferenceData(Snapshot snapshot) {
+    if (snapshot.getVersion() <= index.version) {
+      return;
+    }
+    index = new Index(snapshot.getVersion(), snapshot.getStocks());
+    log.info("INFO: Indexed {} stocks for search", index.refs.length);
+  }
+
+  // Best matches first; a blank query lists everything by symbol
+  public List<StockRef> search(String query, String sector, int offset,
+                               int limit) {
+    Index current = index;
+    String q = normalize(query);
+    String sectorFilter = normalize(sector);
+    List<int[]> hits = new ArrayList<>();
+    BitSet candidates = current.candidates(q);
+    for (int doc = candidates.nextSetBit(0); doc >= 0;
+         doc = candidates.nextSetBit(doc + 1)) {
+      if (!sectorFilter.isEmpty() &&
+          !current.sectors[doc].equals(sectorFilter)) {
+        continue;
+      }
+      int score = q.isEmpty() ? 1 : current.score(doc, q);
+      if (score > 0) {
+        hits.add(new int[] {doc, score});
+      }
+    }
+    // Docs are in symbol order, so the stable sort keeps ties by symbol
+    hits.sort(Comparator.comparingInt((int[] hit) -> - hit[1]));
+    List<StockRef> page = new ArrayList<>();
+    for (int i = Math.max(0, offset);
+         i < hits.size() && page.size() < limit; i++) {
+      page.add(current.refs[hits.get(i)[0]]);
+    }
+    return page;
+  }
+
+  private static String normalize(String text) {
+    if (text == null || text.equals("null")) {
+      return "";
+    }
+    return text.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static final class Index {
+    private final long version;
+    private final StockRef[] refs;
+    private final String[] symbols;
+    private final String[] names;
+    private final String[] sectors;
+    private final Map<String, int[]> grams;
+    // Every word of every field, sorted, with the doc it came from
+    private final String[] words;
+    private final int[] wordDocs;
+
+    private Index(long version, Iterable<StockRef> stocks) {
+      this.version = version;
+      List<StockRef> sorted = new ArrayList<>();
+      stocks.forEach(sorted::add);
+      sorted.sort(Comparator.comparing(StockRef::getSymbol));
+      int n = sorted.size();
+      refs = sorted.toArray(new StockRef[0]);
+      symbols = new String[n];
+      names = new String[n];
+      sectors = new String[n];
+      Map<String, List<Integer>> postings = new HashMap<>();
+      TreeMap<String, List<Integer>> wordPostings = new TreeMap<>();
+      for (int doc = 0; doc < n; doc++) {
+        symbols[doc] = normalize(refs[doc].getSymbol());
+        names[doc] = normalize(refs[doc].getCompanyName());
+        sectors[doc] = normalize(refs[doc].getSector());
+        Set<String> docGrams = new HashSet<>();
+        Set<String> docWords = new HashSet<>();
+        for (String field : new String[] {symbols[doc], names[doc],
+                                          sectors[doc]}) {
+          for (int i = 0; i + GRAM <= field.length(); i++) {
+            docGrams.add(field.substring(i, i + GRAM));
+          }
+          for (String word : field.split("[^\\p{Alnum}]+")) {
+            if (!word.isEmpty()) {
+              docWords.add(word);
+            }
+          }
+        }
+        for (String gram : docGrams) {
+          postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(doc);
+        }
+        for (String word : docWords) {
+          wordPostings.computeIfAbsent(word, w -> new ArrayList<>()).add(doc);
+        }
+      }
+      grams = new HashMap<>(postings.size());
+      postings.forEach(
+          (gram, docs) -> grams.put(gram, docs.stream()
+                                              .mapToInt(Integer::intValue)
+                                              .toArray()));
+      List<String> wordList = new ArrayList<>();
+      List<Integer> docList = new ArrayList<>();
+      wordPostings.forEach((word, docs) -> docs.forEach(doc -> {
+        wordList.add(word);
+        docList.add(doc);
+      }));
+      words = wordList.toArray(new String[0]);
+      wordDocs = docList.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private BitSet candidates(String q) {
+      BitSet result = new BitSet(refs.length);
+      if (q.isEmpty()) {
+        result.set(0, refs.length);
+      } else if (q.length() < GRAM) {
+        int i = Arrays.binarySearch(words, q);
+        if (i < 0) {
+          i = -i - 1;
+        }
+        // Back up over duplicates of an exact match
+        while (i > 0 && words[i - 1].equals(q)) {
+          i--;
+        }
+        for (; i < words.length && words[i].startsWith(q); i++) {
+          result.set(wordDocs[i]);
+        }
+      } else {
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+          int[] docs = grams.get(q.substring(i, i + GRAM));
+          if (docs == null) {
+            return new BitSet();
+          }
+          BitSet gramDocs = new BitSet(refs.length);
+          for (int doc : docs) {
+            gramDocs.set(doc);
+          }
+          if (i == 0) {
+            result = gramDocs;
+          } else {
+            result.and(gramDocs);
+          }
+        }
+      }
+      return result;
+    }
+
+    // Zero when a trigram candidate does not actually contain the query
+    private int score(int doc, String q) {
+      String symbol = symbols[doc];
+      String name = names[doc];
+      if (symbol.equals(q)) {
+        return 100;
+      }
+      if (symbol.startsWith(q)) {
+        return 90;
+      }
+      if (name.startsWith(q)) {
+        return 80;
+      }
+      if (name.contains(" " + q)) {
+        return 70;
+      }
+      if (symbol.contains(q)) {
+        return 50;
+      }
+      if (name.contains(q)) {
+        return 40;
+      }
+      if (sectors[doc].startsWith(q)) {
+        return 20;
+      }
+      return sectors[doc].contains(q) ? 10 : 0;
+    }
+  }
+}
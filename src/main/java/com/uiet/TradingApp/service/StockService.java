@@ -2,12 +2,19 @@ package com.uiet.TradingApp.service;
 
 import com.uiet.TradingApp.DTO.NewStock;
 import com.uiet.TradingApp.DTO.StockDTO;
+import com.uiet.TradingApp.DTO.StockSuggestion;
+import com.uiet.TradingApp.engine.MarketState;
+import com.uiet.TradingApp.engine.MarketState.Quote;
+import com.uiet.TradingApp.engine.PriceTicks;
+import com.uiet.TradingApp.engine.SessionStats;
 import com.uiet.TradingApp.entity.Company;
 import com.uiet.TradingApp.entity.Portfolio;
 import com.uiet.TradingApp.entity.Stock;
 import com.uiet.TradingApp.repository.StockRepository;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
@@ -20,48 +27,25 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class StockService {
   private final StockRepository stockRepository;
+  private final ReferenceDataService referenceDataService;
+  private final StockSearchIndex stockSearchIndex;
+  private final MarketStateService marketStateService;
 
   public Optional<Stock> getStockBySymbol(String symbol) {
     log.info("INFO: Getting stock by symbol {}", symbol);
     return stockRepository.findBySymbol(symbol);
   }
 
-  @Transactional
-  public void updatePrice(Stock stock, BigDecimal soldPrice) {
-    stock.setCurrentPrice(soldPrice);
-    if (soldPrice.compareTo(stock.getHighPrice()) > 1) {
-
-      stock.setHighPrice(soldPrice);
-    }
-    if (soldPrice.compareTo(stock.getLowPrice()) < 1) {
-
-      stock.setLowPrice(soldPrice);
-    }
-    log.info("INFO: Updating stock price for symbol {}", stock.getSymbol());
-    stock.setLastUpdated(LocalDateTime.now());
-    stockRepository.save(stock);
-  }
-
-  @Transactional
-  public void updateTradedVolume(Stock stock, Long quantity) {
-    stock.setTradedVolume(stock.getTradedVolume() + quantity);
-    log.info("INFO: Updating stock traded volume for symbol {}",
-             stock.getSymbol());
-    stock.setLastUpdated(LocalDateTime.now());
-    stockRepository.save(stock);
-  }
-
-  @Transactional
-  public void saveEntry(Stock stock) {
-    stock.setLastUpdated(LocalDateTime.now());
-    log.info("INFO: Saving stock entry for symbol {}", stock.getSymbol());
-    stockRepository.save(stock);
+  // Served from reference data and the resident market state
+  public Optional<StockDTO> getStockDTOBySymbol(String symbol) {
+    return referenceDataService.getBySymbol(symbol).flatMap(this::toDTO);
   }
 
   @Transactional
   public void newStock(Stock stock) {
     log.info("INFO: Creating new stock entry for symbol {}", stock.getSymbol());
     stockRepository.save(stock);
+    referenceDataService.reloadAfterCommit();
   }
 
   @Transactional
@@ -71,6 +55,7 @@ public class StockService {
              stock.getSymbol());
     stock.setLastUpdated(LocalDateTime.now());
     stockRepository.save(stock);
+    referenceDataService.reloadAfterCommit();
   }
 
   public List<Portfolio> getPortfolios(Stock stock) {
@@ -78,64 +63,82 @@ public class StockService {
     return stock.getPortfolio();
   }
 
-  public StockDTO dtoBuilder(Stock stock) {
-    StockDTO stockDTO = StockDTO.builder()
-                            .id(stock.getId())
-                            .closePrice(stock.getClosePrice())
-                            .currentPrice(stock.getCurrentPrice())
-                            .highPrice(stock.getHighPrice())
-                            .lowPrice(stock.getLowPrice())
-                            .openPrice(stock.getOpenPrice())
-                            .symbol(stock.getSymbol())
-                            .tradedVolume(stock.getTradedVolume())
-                            .companyName(stock.getCompany().getName())
-                            .sector(stock.getCompany().getSector())
-                            .build();
-    log.info("INFO: Creating stock DTO for symbol {}", stock.getSymbol());
-    return stockDTO;
+  // Both reads are lock-free, so building a DTO never waits on matching
+  public StockDTO dtoBuilder(StockRef ref, MarketState state) {
+    Quote quote = state.getQuote();
+    SessionStats.Snapshot stats = state.getSessionStats().read();
+    int scale = state.getScale();
+    return StockDTO.builder()
+        .id(ref.getStockId())
+        .closePrice(quote.getClose() == null
+                        ? null
+                        : PriceTicks.toPrice(quote.getClose(), scale))
+        .currentPrice(PriceTicks.toPrice(quote.getLast(), scale))
+        .highPrice(PriceTicks.toPrice(quote.getHigh(), scale))
+        .lowPrice(PriceTicks.toPrice(quote.getLow(), scale))
+        .openPrice(PriceTicks.toPrice(quote.getOpen(), scale))
+        .symbol(ref.getSymbol())
+        .tradedVolume(stats.getVolume())
+        .turnover(PriceTicks.toPrice(stats.getTurnover(), scale))
+        .trades(stats.getTrades())
+        .vwap(stats.vwap(scale))
+        .companyName(ref.getCompanyName())
+        .sector(ref.getSector())
+        .build();
   }
 
-  public List<StockDTO> searchStocks(String companyName, String sector) {
-    List<Stock> stocks;
-    boolean hasCompanyName = companyName != null &&
-                             !companyName.equals("null") &&
-                             !companyName.trim().isEmpty();
-    boolean hasSector =
-        sector != null && !sector.equals("null") && !sector.trim().isEmpty();
-    if (hasCompanyName && hasSector) {
-      stocks =
-          stockRepository
-              .findByCompany_NameContainingIgnoreCaseAndCompany_SectorIgnoreCase(
-                  companyName, sector);
-      log.info("INFO: Searching stocks by company name {} and sector {}",
-               companyName, sector);
-    } else if (hasCompanyName) {
-      stocks =
-          stockRepository.findByCompany_NameContainingIgnoreCase(companyName);
-      log.info("INFO: Searching stocks by company name {}", companyName);
-    } else if (hasSector) {
-      stocks = stockRepository.findByCompany_SectorIgnoreCase(sector);
-      log.info("INFO: Searching stocks by sector {}", sector);
-    } else {
-      log.info("INFO: Searching all stocks");
-      stocks = stockRepository.findAll();
+  private Optional<StockDTO> toDTO(StockRef ref) {
+    return marketStateService.get(ref.getStockId())
+        .map(state -> dtoBuilder(ref, state));
+  }
+
+  public List<StockDTO> searchStocks(String query, String sector, int page,
+                                     int size) {
+    log.info("INFO: Searching stocks for {} in sector {}", query, sector);
+    // Computed wide so a huge page cannot wrap round to an early one
+    long offset = (long)page * size;
+    if (offset > Integer.MAX_VALUE) {
+      return List.of();
     }
-    return stocks.stream().map(this::dtoBuilder).toList();
+    return stockSearchIndex.search(query, sector, (int)offset, size)
+        .stream()
+        .map(this::toDTO)
+        .flatMap(Optional::stream)
+        .toList();
+  }
+
+  public List<StockSuggestion> suggestStocks(String prefix, int limit) {
+    return stockSearchIndex.search(prefix, null, 0, limit)
+        .stream()
+        .map(ref
+             -> new StockSuggestion(ref.getSymbol(), ref.getCompanyName(),
+                                    ref.getSector()))
+        .toList();
   }
 
   @Transactional
   public void deleteStock(Long id) {
     stockRepository.deleteById(id);
+    referenceDataService.reloadAfterCommit();
   }
 
   public Stock buildStock(NewStock newStock, Company company) {
     BigDecimal openPrice = newStock.getOpenPrice();
+    Integer priceScale = newStock.getPriceScale() == null
+                             ? PriceTicks.DEFAULT_SCALE
+                             : newStock.getPriceScale();
+    if (priceScale < 0 || priceScale > PriceTicks.MAX_SCALE) {
+      throw new RuntimeException("Price scale must be between 0 and " +
+                                 PriceTicks.MAX_SCALE);
+    }
+    PriceTicks.toTicks(openPrice, priceScale);
     return Stock.builder()
         .symbol(newStock.getSymbol())
         .currentPrice(openPrice)
         .openPrice(openPrice)
         .highPrice(openPrice)
         .lowPrice(openPrice)
+        .priceScale(priceScale)
         .totalStocks(newStock.getTotalStocks())
         .tradedVolume(0L)
         .company(company)
@@ -149,9 +152,14 @@ public class StockService {
     stock.setLastUpdated(LocalDateTime.now());
     stockRepository.save(stock);
     log.info("INFO: Stock created successfully {}", newStock.getSymbol());
+    referenceDataService.reloadAfterCommit();
     return stock;
   }
 
+  public Stock getReference(Long id) {
+    return stockRepository.getReferenceById(id);
+  }
+
   public Optional<Stock> getStockById(Long id) {
     log.info("INFO: Getting stock by id {}", id);
     return stockRepository.findById(id);
@@ -2,34 +2,102 @@ package com.uiet.TradingApp.service;
 
 import com.uiet.TradingApp.entity.Temp;
 import com.uiet.TradingApp.repository.TempRepository;
+import com.uiet.TradingApp.utils.JwtUtil;
+import com.uiet.TradingApp.utils.TokenBlacklist;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+// Revoked tokens are answered from memory; temp_jwt is only written on logout
+// and read back on startup so revocations survive a restart. With a shared
+// cache store, revocations made on other nodes are checked there as well.
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class TempService {
   private final TempRepository tempRepository;
+  private final JwtUtil jwtUtil;
+  private final PrincipalCache principalCache;
+  private final CacheStore cacheStore;
+
+  private static final String REVOKED_KEY = "revoked:";
+
+  // Longest lifetime of any token JwtUtil issues
+  @Value("${auth.blacklist-retention-ms:3600000}") private long retentionMillis;
+  @Value("${auth.blacklist-bucket-ms:60000}") private long bucketMillis;
+  @Value("${auth.blacklist-bucket-capacity:10000}") private int bucketCapacity;
+
+  private TokenBlacklist blacklist;
+
+  @PostConstruct
+  public void load() {
+    blacklist = new TokenBlacklist(bucketMillis, bucketCapacity, 0.01);
+    long now = System.currentTimeMillis();
+    int loaded = 0;
+    // The row only records when the token was revoked, so it is kept for
+    // the longest lifetime a token can have
+    for (Temp temp : tempRepository.findAll()) {
+      long expiresAt = toMillis(temp.getTimeCreated()) + retentionMillis;
+      if (expiresAt > now) {
+        blacklist.add(temp.getJwtToken(), expiresAt);
+        loaded++;
+      }
+    }
+    log.info("INFO: Loaded {} revoked tokens", loaded);
+  }
 
   @Transactional
   public void newEntry(String jwtToken) {
     log.info("New JWT Entry {}", jwtToken);
-    tempRepository.deleteExpired(LocalDateTime.now().minusMinutes(10));
+    long expiresAt = jwtUtil.extractExpiration(jwtToken).getTime();
     Temp tempJwtStorage = Temp.builder().jwtToken(jwtToken).build();
     tempRepository.save(tempJwtStorage);
+    blacklist.add(jwtToken, expiresAt);
+    principalCache.invalidateToken(jwtToken);
+    if (cacheStore.isShared()) {
+      long remaining = Math.max(1L, expiresAt - System.currentTimeMillis());
+      cacheStore.putAfterCommit(REVOKED_KEY + jwtToken, Boolean.TRUE,
+                                Duration.ofMillis(remaining));
+    }
   }
 
   @Transactional
   public void deleteEntry(String jwtToken) {
     log.info("Deleting JWT Entry {}", jwtToken);
     tempRepository.deleteById(jwtToken);
+    blacklist.remove(jwtToken);
+    if (cacheStore.isShared()) {
+      cacheStore.evictAfterCommit(REVOKED_KEY + jwtToken);
+    }
   }
 
-  @Transactional
   public boolean checkEntry(String jwtToken) {
-    return tempRepository.existsById(jwtToken);
+    if (jwtToken == null) {
+      return false;
+    }
+    return blacklist.contains(jwtToken, System.currentTimeMillis()) ||
+        (cacheStore.isShared() && cacheStore.exists(REVOKED_KEY + jwtToken));
+  }
+
+  @Scheduled(fixedDelayString = "${auth.blacklist-sweep-ms:60000}")
+  @Transactional
+  public void sweep() {
+    int dropped = blacklist.expire(System.currentTimeMillis());
+    tempRepository.deleteExpired(
+        LocalDateTime.now().minus(Duration.ofMillis(retentionMillis)));
+    if (dropped > 0) {
+      log.info("INFO: Dropped {} expired revoked tokens", dropped);
+    }
+  }
+
+  private static long toMillis(LocalDateTime time) {
+    return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
   }
 }
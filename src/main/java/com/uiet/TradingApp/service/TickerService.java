@@ -0,0 +1,90 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.DTO.TickerDTO;
+import com.uiet.TradingApp.engine.MarketState;
+import com.uiet.TradingApp.engine.MarketState.Quote;
+import com.uiet.TradingApp.engine.PriceTicks;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.entity.Trade;
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+// Coalesces trades into at most market-data.ticker-max-per-second updates
+// per symbol on /topic/ticker/{symbol}. Only the latest state is kept between
+// ticks, so a burst of fills costs one message per subscriber. High and low
+// are read from the market state when the tick goes out. Rates above 1000
+// are capped at one tick per millisecond.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TickerService {
+  private final SimpMessagingTemplate messagingTemplate;
+  private final MarketStateService marketStateService;
+
+  @Value("${market-data.ticker-max-per-second:4}") private int maxPerSecond;
+
+  private final Map<String, TickerDTO> pending = new ConcurrentHashMap<>();
+
+  // Runs before the schedule below is registered, so a bad rate fails here
+  // with its name instead of as a division by zero
+  @PostConstruct
+  public void checkRate() {
+    if (maxPerSecond <= 0) {
+      throw new RuntimeException(
+          "market-data.ticker-max-per-second must be positive, was " +
+          maxPerSecond);
+    }
+  }
+
+  public void onTrade(Trade trade, Stock stock) {
+    TickerDTO ticker = TickerDTO.builder()
+                           .symbol(stock.getSymbol())
+                           .stockId(stock.getId())
+                           .lastPrice(trade.getPrice())
+                           .quantity(trade.getQuantity())
+                           .trades(1)
+                           .timestamp(trade.getTimestamp())
+                           .build();
+    pending.merge(stock.getSymbol(), ticker,
+                  (previous, latest)
+                      -> latest.toBuilder()
+                             .quantity(previous.getQuantity() +
+                                       latest.getQuantity())
+                             .trades(previous.getTrades() + 1)
+                             .build());
+  }
+
+  @Scheduled(fixedRateString = "#{T(java.lang.Math).max(1, 1000 / "
+                                + "${market-data.ticker-max-per-second:4})}")
+  public void publish() {
+    for (String symbol : pending.keySet()) {
+      TickerDTO ticker = pending.remove(symbol);
+      if (ticker == null) {
+        continue;
+      }
+      Optional<MarketState> state = marketStateService.get(ticker.getStockId());
+      if (state.isPresent()) {
+        Quote quote = state.get().getQuote();
+        int scale = state.get().getScale();
+        // The state moves only once the trades commit
+        ticker.setHighPrice(PriceTicks.toPrice(quote.getHigh(), scale)
+                                .max(ticker.getLastPrice()));
+        ticker.setLowPrice(PriceTicks.toPrice(quote.getLow(), scale)
+                               .min(ticker.getLastPrice()));
+      }
+      try {
+        messagingTemplate.convertAndSend("/topic/ticker/" + symbol, ticker);
+      } catch (Exception e) {
+        log.error("ERROR: Failed to publish ticker for {}", symbol, e);
+      }
+    }
+  }
+}
@@ -18,7 +18,6 @@ import dev.samstevens.totp.time.SystemTimeProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -34,24 +33,19 @@ public class TotpService {
 
   private String generateSecret() { return secretGenerator.generate(); }
 
-  @Transactional
   public String getSecret(String username) {
-    User user = userService.getUserByUsername(username).orElseThrow(
-        () -> new RuntimeException("User not found"));
     String secret = generateSecret();
-    user.setSecret(secret);
-    userService.saveUser(user);
+    userService.modifyUser(username, user -> user.setSecret(secret));
     return secret;
   }
 
-  @Transactional
   public boolean enableTotp(Long userId, String code) {
     User user = userService.getUserById(userId).orElseThrow(
         () -> new RuntimeException("User not found"));
     String secret = user.getSecret();
     if (verifier.isValidCode(secret, code)) {
-      user.setTotpEnabled(true);
-      userService.saveUser(user);
+      userService.modifyUser(user.getUserName(),
+                             fresh -> fresh.setTotpEnabled(true));
       return true;
     }
     return false;
@@ -0,0 +1,231 @@
+package com.uiet.TradingApp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uiet.TradingApp.DTO.TradeDTO;
+import com.uiet.TradingApp.DTO.TradeHistoryPage;
+import com.uiet.TradingApp.repository.TradeRepository;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import com.uiet.TradingApp.utils.KeysetCursor;
+import jakarta.annotation.PostConstruct;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// A user's trades, newest first, keyed on (timestamp, id). Pages and exports
+// merge the buyer-side and seller-side queries, each of which walks its own
+// index, so memory stays bounded by the page size or by the JDBC fetch size.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TradeHistoryService {
+  private static final LocalDateTime EARLIEST =
+      LocalDateTime.of(1970, 1, 1, 0, 0);
+  private static final LocalDateTime LATEST =
+      LocalDateTime.of(9999, 1, 1, 0, 0);
+  private static final Comparator<TradeDTO> NEWEST_FIRST =
+      Comparator.comparing(TradeDTO::getTimestamp)
+          .thenComparing(TradeDTO::getId)
+          .reversed();
+
+  private final TradeRepository tradeRepository;
+  private final UserService userService;
+  private final ReferenceDataService referenceDataService;
+  private final ObjectMapper objectMapper;
+  private final PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate readTransaction;
+
+  public enum ExportFormat { JSON, CSV }
+
+  @AllArgsConstructor
+  private static class HistoryQuery {
+    private final Long userId;
+    private final Long stockId;
+    private final LocalDateTime from;
+    private final LocalDateTime beforeTime;
+    private final Long beforeId;
+  }
+
+  @PostConstruct
+  public void init() {
+    readTransaction = new TransactionTemplate(transactionManager);
+    readTransaction.setReadOnly(true);
+  }
+
+  public TradeHistoryPage getHistory(String username, String symbol,
+                                     LocalDateTime from, LocalDateTime to,
+                                     String cursor, int size) {
+    Optional<HistoryQuery> query =
+        buildQuery(username, symbol, from, to, cursor);
+    if (query.isEmpty()) {
+      return new TradeHistoryPage(List.of(), null);
+    }
+    HistoryQuery q = query.get();
+    // One extra row per side tells whether another page exists
+    PageRequest limit = PageRequest.of(0, size + 1);
+    List<TradeDTO> bought = tradeRepository.findBuyerHistory(
+        q.userId, q.stockId, q.from, q.beforeTime, q.beforeId, limit);
+    List<TradeDTO> sold = tradeRepository.findSellerHistory(
+        q.userId, q.stockId, q.from, q.beforeTime, q.beforeId, limit);
+    List<TradeDTO> trades = new ArrayList<>(size + 1);
+    merge(bought.iterator(), sold.iterator(), size + 1, trades::add);
+    if (trades.size() <= size) {
+      return new TradeHistoryPage(trades, null);
+    }
+    List<TradeDTO> page = trades.subList(0, size);
+    TradeDTO last = page.get(size - 1);
+    return new TradeHistoryPage(
+        new ArrayList<>(page),
+        new KeysetCursor(last.getTimestamp(), last.getId()).encode());
+  }
+
+  // Writes rows as they are read; nothing beyond the fetch size is held
+  public void export(String username, String symbol, LocalDateTime from,
+                     LocalDateTime to, ExportFormat format,
+                     OutputStream out) {
+    Optional<HistoryQuery> query =
+        buildQuery(username, symbol, from, to, null);
+    readTransaction.executeWithoutResult(status -> {
+      try (Stream<TradeDTO> bought =
+               query.map(this::streamBought).orElseGet(Stream::empty);
+           Stream<TradeDTO> sold =
+               query.map(this::streamSold).orElseGet(Stream::empty)) {
+        if (format == ExportFormat.CSV) {
+          writeCsv(bought.iterator(), sold.iterator(), out);
+        } else {
+          writeJson(bought.iterator(), sold.iterator(), out);
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  private Stream<TradeDTO> streamBought(HistoryQuery q) {
+    return tradeRepository.streamBuyerHistory(q.userId, q.stockId, q.from,
+                                              q.beforeTime, q.beforeId);
+  }
+
+  private Stream<TradeDTO> streamSold(HistoryQuery q) {
+    return tradeRepository.streamSellerHistory(q.userId, q.stockId, q.from,
+                                               q.beforeTime, q.beforeId);
+  }
+
+  // Empty when the symbol does not exist, so nothing can match
+  private Optional<HistoryQuery> buildQuery(String username, String symbol,
+                                            LocalDateTime from,
+                                            LocalDateTime to, String cursor) {
+    Long userId = userService.getUserIdFromUsername(username);
+    Long stockId = null;
+    if (symbol != null && !symbol.isBlank()) {
+      Optional<StockRef> stock = referenceDataService.getBySymbol(symbol);
+      if (stock.isEmpty()) {
+        return Optional.empty();
+      }
+      stockId = stock.get().getStockId();
+    }
+    LocalDateTime beforeTime = to == null ? LATEST : to;
+    // Long.MIN_VALUE makes the upper time bound exclusive
+    Long beforeId = Long.MIN_VALUE;
+    if (cursor != null && !cursor.isBlank()) {
+      KeysetCursor key = KeysetCursor.decode(cursor);
+      beforeTime = key.getTimestamp();
+      beforeId = key.getId();
+    }
+    return Optional.of(new HistoryQuery(userId, stockId,
+                                        from == null ? EARLIEST : from,
+                                        beforeTime, beforeId));
+  }
+
+  // Both inputs are newest first; a self-trade shows up on both sides once
+  private static void merge(Iterator<TradeDTO> bought,
+                            Iterator<TradeDTO> sold, long limit,
+                            Consumer<TradeDTO> sink) {
+    TradeDTO nextBought = bought.hasNext() ? bought.next() : null;
+    TradeDTO nextSold = sold.hasNext() ? sold.next() : null;
+    long written = 0;
+    while ((nextBought != null || nextSold != null) && written < limit) {
+      TradeDTO next;
+      if (nextSold == null ||
+          (nextBought != null &&
+           NEWEST_FIRST.compare(nextBought, nextSold) <= 0)) {
+        next = nextBought;
+        if (nextSold != null && nextSold.getId().equals(nextBought.getId())) {
+          nextSold = sold.hasNext() ? sold.next() : null;
+        }
+        nextBought = bought.hasNext() ? bought.next() : null;
+      } else {
+        next = nextSold;
+        nextSold = sold.hasNext() ? sold.next() : null;
+      }
+      sink.accept(next);
+      written++;
+    }
+  }
+
+  private void writeJson(Iterator<TradeDTO> bought, Iterator<TradeDTO> sold,
+                         OutputStream out) throws IOException {
+    JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+    generator.writeStartArray();
+    merge(bought, sold, Long.MAX_VALUE, trade -> {
+      try {
+        objectMapper.writeValue(generator, trade);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    generator.writeEndArray();
+    generator.flush();
+  }
+
+  private static void writeCsv(Iterator<TradeDTO> bought,
+                               Iterator<TradeDTO> sold, OutputStream out)
+      throws IOException {
+    Writer writer = new BufferedWriter(
+        new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    writer.write("id,symbol,quantity,price,timestamp,buyer,seller\n");
+    merge(bought, sold, Long.MAX_VALUE, trade -> {
+      try {
+        writer.write(trade.getId() + "," + csv(trade.getStockSymbol()) + "," +
+                     trade.getQuantity() + "," +
+                     trade.getPrice().toPlainString() + "," +
+                     trade.getTimestamp() + "," +
+                     csv(trade.getBuyerUsername()) + "," +
+                     csv(trade.getSellerUsername()) + "\n");
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    writer.flush();
+  }
+
+  private static String csv(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+      return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    return value;
+  }
+}
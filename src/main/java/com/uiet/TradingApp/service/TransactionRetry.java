@@ -0,0 +1,65 @@
+package com.uiet.TradingApp.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Runs a transaction and reruns it a bounded number of times when it loses a
+// version check, deadlock or lock wait. The callback has to reload whatever it
+// changes so a rerun starts from fresh rows. Inside an outer transaction there
+// is nothing to rerun, so the callback runs once and the conflict propagates.
+@Slf4j
+@Service
+public class TransactionRetry {
+  private final TransactionTemplate transactionTemplate;
+  private final int maxAttempts;
+  private final long backoffMillis;
+
+  public TransactionRetry(
+      PlatformTransactionManager transactionManager,
+      @Value("${tx.retry.max-attempts:5}") int maxAttempts,
+      @Value("${tx.retry.backoff-ms:10}") long backoffMillis) {
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.backoffMillis = backoffMillis;
+  }
+
+  public <T> T execute(TransactionCallback<T> action) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return transactionTemplate.execute(action);
+    }
+    for (int attempt = 1;; attempt++) {
+      try {
+        return transactionTemplate.execute(action);
+      } catch (ConcurrencyFailureException e) {
+        if (attempt >= maxAttempts) {
+          log.error("ERROR: Transaction conflict after {} attempts", attempt);
+          throw e;
+        }
+        log.warn("WARN: Transaction conflict on attempt {}, retrying: {}",
+                 attempt, e.getMessage());
+        backoff(attempt);
+      }
+    }
+  }
+
+  // Jittered so writers that collided do not collide again in lockstep
+  private void backoff(int attempt) {
+    long delay = backoffMillis * attempt;
+    if (delay <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(delay, 2 * delay));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while retrying transaction");
+    }
+  }
+}
@@ -4,11 +4,14 @@ import com.uiet.TradingApp.entity.Portfolio;
 import com.uiet.TradingApp.entity.User;
 import com.uiet.TradingApp.repository.UserRepository;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,15 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserService {
 
   private final UserRepository userRepository;
+  private final PrincipalCache principalCache;
+  private final CacheStore cacheStore;
+  private final TransactionRetry transactionRetry;
+
+  // Balances are keyed by id so settlement can evict without a lookup
+  private static final String USER_ID_KEY = "user-id:";
+  private static final String BALANCE_KEY = "balance:";
+
+  @Value("${cache.balance-ttl-ms:30000}") private long balanceTtlMillis;
 
   private static final PasswordEncoder PASSWORD_ENCODER =
       new BCryptPasswordEncoder();
@@ -28,6 +40,22 @@ public class UserService {
   public void saveUser(User user) {
     log.info("INFO: Updating / Saving user {}", user.getUserName());
     userRepository.save(user);
+    principalCache.invalidateUser(user.getUserName());
+    evictBalance(user.getId());
+  }
+
+  // Loads the user fresh, applies the change and saves, rerunning from a fresh
+  // load if the row changed underneath
+  public User modifyUser(String username, Consumer<User> change) {
+    User saved = transactionRetry.execute(status -> {
+      User user = userRepository.findByUserName(username).orElseThrow(
+          () -> new RuntimeException("User not found"));
+      change.accept(user);
+      return userRepository.save(user);
+    });
+    principalCache.invalidateUser(saved.getUserName());
+    evictBalance(saved.getId());
+    return saved;
   }
 
   @Transactional
@@ -46,27 +74,44 @@ public class UserService {
     user.setPassword(PASSWORD_ENCODER.encode(user.getPassword()));
     user.setLastActive(LocalDateTime.now());
     userRepository.save(user);
+    principalCache.invalidateUser(user.getUserName());
+    evictBalance(user.getId());
   }
 
+  // Checked and applied in one statement, so concurrent orders and fills
+  // cannot both spend the same balance
   @Transactional
   public void deductBalance(User user, BigDecimal removeBalance) {
-    BigDecimal userBalance = user.getBalance();
-    if (userBalance.compareTo(removeBalance) >= 0) {
-      log.info("INFO: Deducting {} from {}", removeBalance, user.getUserName());
-      user.setBalance(userBalance.subtract(removeBalance));
-      userRepository.save(user);
-    } else {
+    if (!tryDeductBalance(user, removeBalance)) {
       log.error("ERROR: Insufficient balance of {}", user.getUserName());
       throw new RuntimeException("Insufficient balance");
     }
   }
 
+  // False, with nothing changed, when the balance does not cover the amount
+  @Transactional
+  public boolean tryDeductBalance(User user, BigDecimal removeBalance) {
+    if (userRepository.deductBalance(user.getId(), removeBalance) == 0) {
+      return false;
+    }
+    log.info("INFO: Deducting {} from {}", removeBalance, user.getUserName());
+    evictBalance(user.getId());
+    return true;
+  }
+
   @Transactional
   public void addBalance(User user, BigDecimal addBalance) {
-    BigDecimal userBalance = user.getBalance();
-    user.setBalance(userBalance.add(addBalance));
     log.info("INFO: Adding {} to {}", addBalance, user.getUserName());
-    userRepository.save(user);
+    userRepository.addBalance(user.getId(), addBalance);
+    evictBalance(user.getId());
+  }
+
+  // Atomic delta, no read of the row
+  @Transactional
+  public void applyBalanceDelta(Long userId, BigDecimal delta) {
+    log.info("INFO: Applying balance delta {} to user {}", delta, userId);
+    userRepository.addBalance(userId, delta);
+    evictBalance(userId);
   }
 
   public Long getUserId(User user) {
@@ -75,21 +120,41 @@ public class UserService {
   }
 
   public BigDecimal getUserBalance(String username) {
+    Optional<Long> userId = cacheStore.get(USER_ID_KEY + username, Long.class);
+    if (userId.isPresent()) {
+      Optional<BigDecimal> cached =
+          cacheStore.get(BALANCE_KEY + userId.get(), BigDecimal.class);
+      if (cached.isPresent()) {
+        return cached.get();
+      }
+    }
     User user = userRepository.findByUserName(username).orElseThrow(
         () -> new RuntimeException("User not found"));
     log.info("INFO: Getting user balance for {}", user.getUserName());
+    cacheStore.put(USER_ID_KEY + username, user.getId());
+    cacheStore.put(BALANCE_KEY + user.getId(), user.getBalance(),
+                   Duration.ofMillis(balanceTtlMillis));
     return user.getBalance();
   }
 
   @Transactional
   public void deleteUser(String username) {
     log.info("INFO: Deleting user {}", username);
+    userRepository.findByUserName(username).ifPresent(
+        user -> evictBalance(user.getId()));
     userRepository.deleteByUserName(username);
+    principalCache.invalidateUser(username);
+    cacheStore.evictAfterCommit(USER_ID_KEY + username);
   }
 
   public void deleteUserById(Long id) {
     log.info("INFO: Deleting user by id {}", id);
+    userRepository.findById(id).ifPresent(user -> {
+      principalCache.invalidateUser(user.getUserName());
+      cacheStore.evictAfterCommit(USER_ID_KEY + user.getUserName());
+    });
     userRepository.deleteById(id);
+    evictBalance(id);
   }
 
   public List<String> getRolesByUsername(String username) {
@@ -111,6 +176,16 @@ public class UserService {
     return userRepository.findById(id);
   }
 
+  public User getReference(Long id) {
+    return userRepository.getReferenceById(id);
+  }
+
+  private void evictBalance(Long userId) {
+    if (userId != null) {
+      cacheStore.evictAfterCommit(BALANCE_KEY + userId);
+    }
+  }
+
   public boolean ifTotpEnabled(String username) {
     User user = userRepository.findByUserName(username).orElseThrow(
         () -> new RuntimeException("User not found"));
@@ -0,0 +1,329 @@
+package com.uiet.TradingApp.service;
+
+import com.uiet.TradingApp.DTO.SectorIndexDTO;
+import com.uiet.TradingApp.entity.Company;
+import com.uiet.TradingApp.entity.Stock;
+import com.uiet.TradingApp.entity.Trade;
+import com.uiet.TradingApp.repository.StockRepository;
+import com.uiet.TradingApp.service.ReferenceDataService.Snapshot;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Company market caps and per-sector indices, kept in memory and moved by
+// the delta of each committed price change instead of summing every stock of
+// a company per trade. Changed sectors go out on /topic/indices every
+// valuation.publish-ms and changed caps are written every valuation.flush-ms.
+//
+// Both indices start at 1000 from the prices seen at load. The cap-weighted
+// one follows sector cap over base cap; the equal-weighted one averages each
+// stock's price over its base price. A stock without a price joins the base
+// at its first trade, so listing it does not move the index.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ValuationService {
+  private static final BigDecimal BASE_LEVEL = BigDecimal.valueOf(1000);
+  private static final MathContext PRECISION = MathContext.DECIMAL64;
+
+  private final StockRepository stockRepository;
+  private final ReferenceDataService referenceDataService;
+  private final CompanyService companyService;
+  private final SimpMessagingTemplate messagingTemplate;
+  private final PlatformTransactionManager transactionManager;
+
+  private static final class Constituent {
+    final long companyId;
+    final String sector;
+    final BigDecimal shares;
+    BigDecimal price;
+    BigDecimal basePrice;
+
+    Constituent(long companyId, String sector, long shares, BigDecimal price) {
+      this.companyId = companyId;
+      this.sector = sector;
+      this.shares = BigDecimal.valueOf(shares);
+      this.price = price;
+      this.basePrice = price;
+    }
+
+    BigDecimal cap() { return price.multiply(shares); }
+
+    boolean priced() { return basePrice.signum() > 0; }
+  }
+
+  private static final class Sector {
+    BigDecimal cap = BigDecimal.ZERO;
+    BigDecimal baseCap = BigDecimal.ZERO;
+    // Sum of price over base price of the priced constituents
+    BigDecimal ratioSum = BigDecimal.ZERO;
+    int priced;
+    int constituents;
+  }
+
+  // All guarded by this
+  private final Map<Long, Constituent> constituents = new HashMap<>();
+  private final Map<Long, BigDecimal> companyCaps = new HashMap<>();
+  private final Map<String, Sector> sectors = new HashMap<>();
+  private final Set<Long> dirtyCompanies = new HashSet<>();
+  private final Set<String> changedSectors = new TreeSet<>();
+  private long version = -1L;
+
+  private TransactionTemplate readTransaction;
+
+  @PostConstruct
+  public void init() {
+    // A fresh transaction, since snapshots are also published from
+    // afterCommit where the finished transaction's session is still bound
+    readTransaction = new TransactionTemplate(transactionManager);
+    readTransaction.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    readTransaction.setReadOnly(true);
+    onReferenceData(referenceDataService.getSnapshot());
+  }
+
+  // Adds listed stocks and drops delisted ones. A stock whose company, sector
+  // or share count changed is taken out and put back at its current price,
+  // so it moves sector and rebases without jumping either index.
+  @EventListener
+  public synchronized void onReferenceData(Snapshot snapshot) {
+    if (snapshot.getVersion() <= version) {
+      return;
+    }
+    version = snapshot.getVersion();
+    for (Long stockId : new ArrayList<>(constituents.keySet())) {
+      StockRef ref = snapshot.getById().get(stockId);
+      if (ref == null || ref.getCompanyId() == null) {
+        remove(stockId);
+        continue;
+      }
+      Constituent constituent = constituents.get(stockId);
+      String sector = sectorOf(ref.getSector());
+      long shares = sharesOf(ref.getTotalStocks());
+      if (constituent.companyId != ref.getCompanyId() ||
+          !constituent.sector.equals(sector) ||
+          constituent.shares.longValue() != shares) {
+        remove(stockId);
+        add(stockId, ref.getCompanyId(), sector, shares, constituent.price);
+      }
+    }
+    List<Long> listed = snapshot.getById()
+                            .keySet()
+                            .stream()
+                            .filter(id -> !constituents.containsKey(id))
+                            .toList();
+    if (listed.isEmpty()) {
+      return;
+    }
+    List<Stock> stocks = readTransaction.execute(
+        status -> stockRepository.findAllWithCompanyByIdIn(listed));
+    for (Stock stock : stocks) {
+      add(stock);
+    }
+    log.info("INFO: Valuing {} stocks in {} sectors", constituents.size(),
+             sectors.size());
+  }
+
+  // Applied once the trade's transaction commits
+  public void onTrade(Trade trade) {
+    long stockId = trade.getStock().getId();
+    BigDecimal price = trade.getPrice();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              onPrice(stockId, price);
+            }
+          });
+    } else {
+      onPrice(stockId, price);
+    }
+  }
+
+  public synchronized void onPrice(long stockId, BigDecimal price) {
+    Constituent constituent = constituents.get(stockId);
+    if (constituent == null || price.compareTo(constituent.price) == 0) {
+      return;
+    }
+    BigDecimal capDelta =
+        price.subtract(constituent.price).multiply(constituent.shares);
+    companyCaps.merge(constituent.companyId, capDelta, BigDecimal::add);
+    dirtyCompanies.add(constituent.companyId);
+    Sector sector = sectors.get(constituent.sector);
+    sector.cap = sector.cap.add(capDelta);
+    if (constituent.priced()) {
+      sector.ratioSum = sector.ratioSum.add(
+          price.subtract(constituent.price)
+              .divide(constituent.basePrice, PRECISION));
+    } else {
+      constituent.basePrice = price;
+      sector.baseCap = sector.baseCap.add(price.multiply(constituent.shares));
+      sector.ratioSum = sector.ratioSum.add(BigDecimal.ONE);
+      sector.priced++;
+    }
+    constituent.price = price;
+    changedSectors.add(constituent.sector);
+  }
+
+  public synchronized List<SectorIndexDTO> getIndices() {
+    LocalDateTime now = LocalDateTime.now();
+    List<SectorIndexDTO> indices = new ArrayList<>();
+    new TreeMap<>(sectors).forEach(
+        (name, sector) -> indices.add(toDTO(name, sector, now)));
+    return indices;
+  }
+
+  @Scheduled(fixedRateString = "${valuation.publish-ms:1000}")
+  public void publish() {
+    List<SectorIndexDTO> changed = new ArrayList<>();
+    synchronized (this) {
+      LocalDateTime now = LocalDateTime.now();
+      for (String name : changedSectors) {
+        Sector sector = sectors.get(name);
+        if (sector != null) {
+          changed.add(toDTO(name, sector, now));
+        }
+      }
+      changedSectors.clear();
+    }
+    if (changed.isEmpty()) {
+      return;
+    }
+    try {
+      messagingTemplate.convertAndSend("/topic/indices", changed);
+    } catch (Exception e) {
+      log.error("ERROR: Failed to publish sector indices", e);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${valuation.flush-ms:1000}")
+  public void flush() {
+    Map<Long, BigDecimal> caps = new HashMap<>();
+    synchronized (this) {
+      for (Long companyId : dirtyCompanies) {
+        caps.put(companyId, companyCaps.get(companyId));
+      }
+      dirtyCompanies.clear();
+    }
+    if (caps.isEmpty()) {
+      return;
+    }
+    try {
+      companyService.updateMarketCaps(caps);
+    } catch (Exception e) {
+      log.error("ERROR: Failed to write {} market caps", caps.size(), e);
+      synchronized (this) {
+        dirtyCompanies.addAll(caps.keySet());
+      }
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    flush();
+  }
+
+  private void add(Stock stock) {
+    Company company = stock.getCompany();
+    if (company == null) {
+      return;
+    }
+    add(stock.getId(), company.getId(), sectorOf(company.getSector()),
+        sharesOf(stock.getTotalStocks()),
+        Objects.requireNonNullElse(stock.getCurrentPrice(), BigDecimal.ZERO));
+  }
+
+  private void add(long stockId, long companyId, String name, long shares,
+                   BigDecimal price) {
+    Constituent constituent = new Constituent(companyId, name, shares, price);
+    constituents.put(stockId, constituent);
+    companyCaps.merge(companyId, constituent.cap(), BigDecimal::add);
+    dirtyCompanies.add(companyId);
+    Sector sector = sectors.computeIfAbsent(name, key -> new Sector());
+    sector.cap = sector.cap.add(constituent.cap());
+    sector.baseCap = sector.baseCap.add(constituent.cap());
+    sector.constituents++;
+    if (constituent.priced()) {
+      sector.ratioSum = sector.ratioSum.add(BigDecimal.ONE);
+      sector.priced++;
+    }
+    changedSectors.add(name);
+  }
+
+  private void remove(long stockId) {
+    Constituent constituent = constituents.remove(stockId);
+    companyCaps.merge(constituent.companyId, constituent.cap().negate(),
+                      BigDecimal::add);
+    dirtyCompanies.add(constituent.companyId);
+    Sector sector = sectors.get(constituent.sector);
+    sector.cap = sector.cap.subtract(constituent.cap());
+    sector.baseCap =
+        sector.baseCap.subtract(constituent.basePrice.multiply(
+            constituent.shares));
+    if (constituent.priced()) {
+      sector.ratioSum = sector.ratioSum.subtract(
+          constituent.price.divide(constituent.basePrice, PRECISION));
+      sector.priced--;
+    }
+    if (--sector.constituents == 0) {
+      sectors.remove(constituent.sector);
+    }
+    changedSectors.add(constituent.sector);
+  }
+
+  private static String sectorOf(String sector) {
+    return sector == null ? "" : sector;
+  }
+
+  private static long sharesOf(Long totalStocks) {
+    return totalStocks == null ? 0L : totalStocks;
+  }
+
+  private static SectorIndexDTO toDTO(String name, Sector sector,
+                                      LocalDateTime now) {
+    BigDecimal capWeighted =
+        sector.baseCap.signum() > 0
+            ? sector.cap.divide(sector.baseCap, PRECISION)
+                  .multiply(BASE_LEVEL)
+            : BASE_LEVEL;
+    BigDecimal equalWeighted =
+        sector.priced > 0
+            ? sector.ratioSum
+                  .divide(BigDecimal.valueOf(sector.priced), PRECISION)
+                  .multiply(BASE_LEVEL)
+            : BASE_LEVEL;
+    return SectorIndexDTO.builder()
+        .sector(name)
+        .capWeighted(capWeighted.setScale(2, RoundingMode.HALF_UP))
+        .equalWeighted(equalWeighted.setScale(2, RoundingMode.HALF_UP))
+        .marketCap(sector.cap)
+        .constituents(sector.constituents)
+        .timestamp(now)
+        .build();
+  }
+}
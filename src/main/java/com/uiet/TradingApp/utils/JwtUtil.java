@@ -2,8 +2,10 @@
 package com.uiet.TradingApp.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,6 +17,16 @@ import org.springframework.stereotype.Component;
 public class JwtUtil {
   @Value("${jwt.secret}") private String secretKey;
 
+  // Both are immutable and thread safe, so they are built once
+  private SecretKey signingKey;
+  private JwtParser jwtParser;
+
+  @PostConstruct
+  public void init() {
+    signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+    jwtParser = Jwts.parser().verifyWith(signingKey).build();
+  }
+
   public String generateToken(String userName) {
     Map<String, Object> claims = new HashMap<>();
     return createToken(claims, userName);
@@ -74,13 +86,10 @@ public class JwtUtil {
         .compact();
   }
 
-  private SecretKey getSigningKey() {
-
-    return Keys.hmacShaKeyFor(secretKey.getBytes());
-  }
+  private SecretKey getSigningKey() { return signingKey; }
 
   public String extractUsername(String token) {
-    return extractAllClaims(token).getSubject();
+    return parseClaims(token).getSubject();
   }
 
   public Boolean validateToken(String token) { return !isTokenExpired(token); }
@@ -90,19 +99,16 @@ public class JwtUtil {
   }
 
   public Date extractExpiration(String token) {
-    return extractAllClaims(token).getExpiration();
+    return parseClaims(token).getExpiration();
   }
 
-  private Claims extractAllClaims(String token) {
-    return Jwts.parser()
-        .verifyWith(getSigningKey())
-        .build()
-        .parseSignedClaims(token)
-        .getPayload();
+  // Verifies the signature and expiry, throwing if either fails
+  public Claims parseClaims(String token) {
+    return jwtParser.parseSignedClaims(token).getPayload();
   }
 
   public Object extractClaimsForOtp(String token) {
-    Claims claims = extractAllClaims(token);
+    Claims claims = parseClaims(token);
     return claims.get("purpose");
   }
 }
@@ -0,0 +1,30 @@
+package com.uiet.TradingApp.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import lombok.Value;
+
+// Opaque page cursor for listings ordered by (timestamp, id) descending
+@Value
+public class KeysetCursor {
+  LocalDateTime timestamp;
+  Long id;
+
+  public String encode() {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(
+        (timestamp + "|" + id).getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static KeysetCursor decode(String cursor) {
+    try {
+      String[] key = new String(Base64.getUrlDecoder().decode(cursor),
+                                StandardCharsets.UTF_8)
+                         .split("\\|");
+      return new KeysetCursor(LocalDateTime.parse(key[0]),
+                              Long.parseLong(key[1]));
+    } catch (RuntimeException e) {
+      throw new RuntimeException("Invalid cursor");
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.uiet.TradingApp.utils;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Revoked tokens grouped into buckets by expiry time. Each bucket has a Bloom
+// filter in front of its exact set, so a token that was never revoked is
+// usually rejected by a few bit tests. A whole bucket is dropped once every
+// token in it has expired.
+public class TokenBlacklist {
+  private final long bucketMillis;
+  private final int bitsPerBucket;
+  private final int hashes;
+  private final ConcurrentSkipListMap<Long, Bucket> buckets =
+      new ConcurrentSkipListMap<>();
+
+  public TokenBlacklist(long bucketMillis, int expectedPerBucket,
+                        double falsePositiveRate) {
+    if (bucketMillis <= 0 || expectedPerBucket <= 0 ||
+        falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Invalid blacklist sizing");
+    }
+    this.bucketMillis = bucketMillis;
+    double ln2 = Math.log(2);
+    long bits = (long)Math.ceil(-expectedPerBucket *
+                                Math.log(falsePositiveRate) / (ln2 * ln2));
+    // Rounded up to whole words
+    this.bitsPerBucket = (int)Math.min(Integer.MAX_VALUE - 63, bits + 63) &
+                         ~63;
+    this.hashes = Math.max(
+        1, (int)Math.round((double)bitsPerBucket / expectedPerBucket * ln2));
+  }
+
+  public void add(String token, long expiresAtMillis) {
+    buckets
+        .computeIfAbsent(expiresAtMillis / bucketMillis,
+                         index -> new Bucket())
+        .add(token, hash(token));
+  }
+
+  public boolean contains(String token, long now) {
+    long hash = hash(token);
+    for (Bucket bucket : buckets.tailMap(now / bucketMillis).values()) {
+      if (bucket.contains(token, hash)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void remove(String token) {
+    for (Bucket bucket : buckets.values()) {
+      // The filter bits stay set; the exact set has the final say
+      bucket.tokens.remove(token);
+    }
+  }
+
+  // Drops every bucket whose tokens have all expired by now
+  public int expire(long now) {
+    Map<Long, Bucket> expired = buckets.headMap(now / bucketMillis);
+    int dropped = 0;
+    for (Bucket bucket : expired.values()) {
+      dropped += bucket.tokens.size();
+    }
+    expired.clear();
+    return dropped;
+  }
+
+  public int size() {
+    int size = 0;
+    for (Bucket bucket : buckets.values()) {
+      size += bucket.tokens.size();
+    }
+    return size;
+  }
+
+  // 64-bit FNV-1a; the two halves seed the double hashing in the filters
+  private static long hash(String token) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < token.length(); i++) {
+      hash ^= token.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private final class Bucket {
+    private final AtomicLongArray bits =
+        new AtomicLongArray(bitsPerBucket >>> 6);
+    private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+
+    private void add(String token, long hash) {
+      // Exact set first, so a filter hit always finds the token
+      tokens.add(token);
+      int h1 = (int)hash;
+      int h2 = (int)(hash >>> 32);
+      for (int i = 0; i < hashes; i++) {
+        int bit = Math.floorMod(h1 + i * h2, bitsPerBucket);
+        long mask = 1L << bit;
+        bits.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+      }
+    }
+
+    private boolean contains(String token, long hash) {
+      int h1 = (int)hash;
+      int h2 = (int)(hash >>> 32);
+      for (int i = 0; i < hashes; i++) {
+        int bit = Math.floorMod(h1 + i * h2, bitsPerBucket);
+        if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return tokens.contains(token);
+    }
+  }
+}
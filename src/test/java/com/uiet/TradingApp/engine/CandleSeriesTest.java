@@ -0,0 +1,78 @@
+package com.uiet.TradingApp.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CandleSeriesTest {
+  private static final long MINUTE = 60_000L;
+
+  @Test
+  void foldsTradesIntoTheOpenBar() {
+    CandleSeries series = new CandleSeries(CandleInterval.M1, 4);
+    series.onTrade(1_000L, 100L, 5L);
+    series.onTrade(20_000L, 104L, 1L);
+    series.onTrade(30_000L, 98L, 2L);
+    series.onTrade(59_999L, 101L, 3L);
+
+    List<CandleBar> bars = series.range(0L, Long.MAX_VALUE);
+    assertEquals(List.of(new CandleBar(0L, 100L, 104L, 98L, 101L, 11L, 4)),
+                 bars);
+  }
+
+  @Test
+  void ringDropsTheOldestBars() {
+    CandleSeries series = new CandleSeries(CandleInterval.M1, 2);
+    series.onTrade(0L, 100L, 1L);
+    series.onTrade(MINUTE, 101L, 1L);
+    series.onTrade(2 * MINUTE, 102L, 1L);
+    // Stamped before the open bar, so it is folded into it
+    series.onTrade(MINUTE + 1, 99L, 1L);
+
+    List<CandleBar> bars = series.range(0L, Long.MAX_VALUE);
+    assertEquals(List.of(MINUTE, 2 * MINUTE),
+                 bars.stream().map(CandleBar::getOpenTime).toList());
+    assertEquals(99L, bars.get(1).getClose());
+    assertEquals(MINUTE, series.earliest());
+    assertEquals(1, series.range(0L, 2 * MINUTE).size());
+  }
+
+  @Test
+  void drainsOnlyChangedBars() {
+    CandleSeries series = new CandleSeries(CandleInterval.M1, 4);
+    series.restore(new CandleBar(0L, 100L, 100L, 100L, 100L, 1L, 1));
+    assertTrue(series.drainDirty().isEmpty());
+
+    series.onTrade(10L, 103L, 2L);
+    series.onTrade(MINUTE, 104L, 2L);
+    List<CandleBar> dirty = series.drainDirty();
+    assertEquals(2, dirty.size());
+    assertEquals(new CandleBar(0L, 100L, 103L, 100L, 103L, 3L, 2),
+                 dirty.get(0));
+    assertTrue(series.drainDirty().isEmpty());
+
+    series.markDirty(dirty);
+    assertEquals(2, series.drainDirty().size());
+  }
+
+  @Test
+  void tracksWhichBarsHaveRows() {
+    CandleSeries series = new CandleSeries(CandleInterval.M1, 4);
+    series.restore(new CandleBar(0L, 100L, 100L, 100L, 100L, 1L, 1));
+    series.onTrade(10L, 101L, 1L);
+    series.onTrade(MINUTE, 102L, 1L);
+    List<CandleBar> dirty = series.drainDirty();
+    assertTrue(series.isStored(dirty.get(0)));
+    assertFalse(series.isStored(dirty.get(1)));
+
+    series.markStored(dirty);
+    series.onTrade(MINUTE + 10L, 103L, 1L);
+    series.onTrade(2 * MINUTE, 104L, 1L);
+    dirty = series.drainDirty();
+    assertTrue(series.isStored(dirty.get(0)));
+    assertFalse(series.isStored(dirty.get(1)));
+  }
+}
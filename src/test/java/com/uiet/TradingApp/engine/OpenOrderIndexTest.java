@@ -0,0 +1,54 @@
+package com.uiet.TradingApp.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.uiet.TradingApp.entity.Enum.OrderStatus;
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OpenOrderIndexTest {
+  private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+  private static OpenOrder order(long id, long stockId, int minute) {
+    return new OpenOrder(id, 7L, stockId, OrderType.BUY, OrderStatus.PENDING,
+                         BigDecimal.TEN, 10L, T0.plusMinutes(minute));
+  }
+
+  @Test
+  void listsNewestFirstAndFiltersByStock() {
+    OpenOrderIndex index = new OpenOrderIndex();
+    index.put(order(1L, 1L, 0));
+    index.put(order(2L, 2L, 5));
+    index.put(order(3L, 1L, 5));
+
+    assertEquals(List.of(3L, 2L, 1L), index.forUser(7L, null)
+                                          .stream()
+                                          .map(OpenOrder::getOrderId)
+                                          .toList());
+    assertEquals(List.of(3L, 1L), index.forUser(7L, 1L)
+                                      .stream()
+                                      .map(OpenOrder::getOrderId)
+                                      .toList());
+    assertTrue(index.forUser(8L, null).isEmpty());
+  }
+
+  @Test
+  void fillsReplaceEntriesAndFullFillsDropThem() {
+    OpenOrderIndex index = new OpenOrderIndex();
+    index.put(order(1L, 1L, 0));
+    index.put(order(2L, 1L, 1));
+
+    index.fill(7L, 1L, 4L);
+    OpenOrder partial = index.forUser(7L, null).get(1);
+    assertEquals(4L, partial.getQuantity());
+    assertEquals(OrderStatus.PARTIALLY_FILLED, partial.getStatus());
+
+    index.fill(7L, 2L, 0L);
+    index.remove(7L, 1L);
+    assertEquals(0, index.size());
+  }
+}
@@ -0,0 +1,74 @@
+package com.uiet.TradingApp.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class OrderBookTest {
+
+  private BookOrder order(long id, OrderType type, long price, long qty) {
+    return new BookOrder(id, 1L, 1L, type, price, qty);
+  }
+
+  @Test
+  void bestAskIsLowestPriceThenOldest() {
+    OrderBook book = new OrderBook(1L);
+    book.add(order(1, OrderType.SELL, 10100, 10));
+    book.add(order(2, OrderType.SELL, 10000, 10));
+    book.add(order(3, OrderType.SELL, 10000, 10));
+
+    assertEquals(2L, book.bestCrossing(OrderType.SELL, 10500).getOrderId());
+    assertNull(book.bestCrossing(OrderType.SELL, 9900));
+  }
+
+  @Test
+  void fillAndRemoveDropEmptyLevels() {
+    OrderBook book = new OrderBook(1L);
+    BookOrder bid = order(1, OrderType.BUY, 10000, 10);
+    book.add(bid);
+    book.add(order(2, OrderType.BUY, 9900, 5));
+    book.add(order(3, OrderType.BUY, 9800, 5));
+
+    book.fill(bid, 4);
+    assertEquals(6L, book.getBids().best().getTotalQuantity());
+    book.fill(bid, 6);
+    assertEquals(9900L, book.getBids().best().getPrice());
+    assertEquals(9800L, book.getBids().level(1).getPrice());
+
+    book.remove(2L);
+    book.remove(3L);
+    assertEquals(0, book.size());
+    assertNull(book.bestCrossing(OrderType.BUY, 0));
+  }
+
+  @Test
+  void changedLevelsAreTrackedUntilSequenced() {
+    OrderBook book = new OrderBook(1L);
+    BookOrder ask = order(1, OrderType.SELL, 10100, 10);
+    book.add(ask);
+    book.add(order(2, OrderType.SELL, 10100, 5));
+    book.add(order(3, OrderType.BUY, 9900, 5));
+    assertEquals(1L, book.nextDepthSequence());
+    assertFalse(book.hasDepthChanges());
+
+    book.fill(ask, 10);
+    book.remove(3L);
+    assertTrue(book.hasDepthChanges());
+    assertEquals(1, book.getAsks().changedCount());
+    assertEquals(10100L, book.getAsks().changedPrice(0));
+    assertEquals(9900L, book.getBids().changedPrice(0));
+    assertNull(book.getBids().get(9900L));
+    assertEquals(2L, book.nextDepthSequence());
+  }
+
+  @Test
+  void ticksRoundTripAtStockScale() {
+    assertEquals(10050L, PriceTicks.toTicks(new BigDecimal("100.5"), 2));
+    assertEquals(new BigDecimal("100.50"), PriceTicks.toPrice(10050L, 2));
+  }
+}
@@ -0,0 +1,111 @@
+package com.uiet.TradingApp.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.uiet.TradingApp.entity.Enum.OrderType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrderJournalTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void interleavedShardsAreReleasedInSequenceOrder() throws Exception {
+    Queue<JournalRecord> projected = new ConcurrentLinkedQueue<>();
+    OrderJournal journal =
+        new OrderJournal(directory, 1024 * 1024, projected::add);
+    journal.replay(record -> {});
+    int shards = 4;
+    int perShard = 5_000;
+    CountDownLatch go = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int s = 0; s < shards; s++) {
+      long stockId = s + 1;
+      Thread thread = new Thread(() -> {
+        try {
+          go.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < perShard; i++) {
+          journal.append(record(i + 1, stockId));
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    Thread flusher = new Thread(() -> {
+      while (!Thread.currentThread().isInterrupted()) {
+        journal.force();
+      }
+    });
+    flusher.start();
+    go.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    flusher.interrupt();
+    flusher.join();
+    journal.force();
+
+    assertEquals(shards * perShard, projected.size());
+    long expected = 1L;
+    for (JournalRecord record : projected) {
+      assertEquals(expected++, record.getSequence());
+    }
+    journal.close();
+  }
+
+  @Test
+  void releasesRecordsOnlyOnceForced() throws Exception {
+    Queue<JournalRecord> projected = new ConcurrentLinkedQueue<>();
+    OrderJournal journal =
+        new OrderJournal(directory, 1024 * 1024, projected::add);
+    journal.replay(record -> {});
+    JournalRecord appended = journal.append(record(1L, 1L));
+    assertTrue(projected.isEmpty());
+    assertFalse(journal.awaitForced(appended.getSequence(), 1L));
+
+    journal.force();
+    assertEquals(List.of(appended), new ArrayList<>(projected));
+    assertTrue(journal.awaitForced(appended.getSequence(), 1L));
+    journal.close();
+  }
+
+  @Test
+  void resumesNumberingAfterACheckpointPastTheJournal() throws Exception {
+    OrderJournal journal = new OrderJournal(directory, 1024 * 1024, r -> {});
+    journal.replay(record -> {});
+    journal.append(record(1L, 1L));
+    journal.force();
+    journal.close();
+
+    OrderJournal reopened =
+        new OrderJournal(directory, 1024 * 1024, r -> {});
+    reopened.replay(record -> {});
+    reopened.skipTo(5L);
+    assertEquals(6L, reopened.append(record(2L, 1L)).getSequence());
+    reopened.force();
+    reopened.close();
+
+    List<Long> sequences = new ArrayList<>();
+    new OrderJournal(directory, 1024 * 1024, r -> {})
+        .replay(record -> sequences.add(record.getSequence()));
+    assertEquals(List.of(1L, 6L), sequences);
+  }
+
+  private static JournalRecord record(long orderId, long stockId) {
+    BookOrder order =
+        new BookOrder(orderId, 1L, stockId, OrderType.BUY, 100L, 1L);
+    return JournalRecord.accepted(order, orderId);
+  }
+}
@@ -0,0 +1,54 @@
+package com.uiet.TradingApp.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class SessionStatsTest {
+
+  @Test
+  void accumulatesVolumeTurnoverAndVwap() {
+    SessionStats stats = new SessionStats(0L, 0L, 0L);
+    assertNull(stats.read().vwap(2));
+
+    stats.record(10000L, 10L);
+    stats.record(10100L, 5L);
+    SessionStats.Snapshot snapshot = stats.read();
+    assertEquals(15L, snapshot.getVolume());
+    assertEquals(150500L, snapshot.getTurnover());
+    assertEquals(2L, snapshot.getTrades());
+    assertEquals(new BigDecimal("100.3333"), snapshot.vwap(2));
+
+    stats.reset();
+    assertEquals(new SessionStats.Snapshot(0L, 0L, 0L), stats.read());
+  }
+
+  @Test
+  void readersNeverSeeAHalfWrittenUpdate() throws InterruptedException {
+    SessionStats stats = new SessionStats(0L, 0L, 0L);
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<String> torn = new AtomicReference<>();
+    Thread reader = new Thread(() -> {
+      while (!done.get() && torn.get() == null) {
+        SessionStats.Snapshot snapshot = stats.read();
+        // Every fill is one share at 7 ticks
+        if (snapshot.getTurnover() != 7L * snapshot.getVolume() ||
+            snapshot.getTrades() != snapshot.getVolume()) {
+          torn.set(snapshot.toString());
+        }
+      }
+    });
+    reader.start();
+    for (int i = 0; i < 2_000_000; i++) {
+      stats.record(7L, 1L);
+    }
+    done.set(true);
+    reader.join();
+    assertNull(torn.get());
+    assertEquals(2_000_000L, stats.read().getVolume());
+  }
+}
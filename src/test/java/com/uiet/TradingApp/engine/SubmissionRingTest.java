@@ -0,0 +1,58 @@
+package com.uiet.TradingApp.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SubmissionRingTest {
+
+  @Test
+  void rejectsWhenFullAndKeepsFifoOrder() {
+    SubmissionRing<Integer> ring = new SubmissionRing<>(4);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(ring.offer(i));
+    }
+    assertFalse(ring.offer(4));
+    assertEquals(0, ring.poll());
+    assertTrue(ring.offer(4));
+    for (int i = 1; i <= 4; i++) {
+      assertEquals(i, ring.poll());
+    }
+    assertNull(ring.poll());
+  }
+
+  @Test
+  void concurrentProducersLoseNothing() throws InterruptedException {
+    SubmissionRing<Integer> ring = new SubmissionRing<>(64);
+    int producers = 4;
+    int perProducer = 2_000;
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          while (!ring.offer(1)) {
+            Thread.yield();
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    long received = 0;
+    while (received < (long)producers * perProducer) {
+      Integer value = ring.poll();
+      if (value != null) {
+        received += value;
+      }
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(ring.poll());
+  }
+}
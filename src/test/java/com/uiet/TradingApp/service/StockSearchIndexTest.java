@@ -0,0 +1,59 @@
+package com.uiet.TradingApp.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.uiet.TradingApp.service.ReferenceDataService.Snapshot;
+import com.uiet.TradingApp.service.ReferenceDataService.StockRef;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StockSearchIndexTest {
+  private StockSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    Map<String, StockRef> bySymbol = new HashMap<>();
+    Map<Long, StockRef> byId = new HashMap<>();
+    long id = 0;
+    for (String[] row : new String[][] {{"ACM", "Acme Corp", "Tech"},
+                                        {"MAC", "Big Machines", "Industrial"},
+                                        {"TCH", "Techno Acme", "Tech"},
+                                        {"ZZZ", "Sleepy Beds", "Retail"}}) {
+      StockRef ref = new StockRef(++id, row[0], 2, id, row[1], row[2], 100L);
+      bySymbol.put(ref.getSymbol(), ref);
+      byId.put(ref.getStockId(), ref);
+    }
+    index = new StockSearchIndex(null);
+    index.onReferenceData(new Snapshot(1L, bySymbol, byId));
+  }
+
+  @Test
+  void ranksSymbolMatchesBeforeNameMatches() {
+    assertEquals(List.of("ACM", "TCH"), symbols(index.search("acm", null, 0,
+                                                              10)));
+    assertEquals(List.of("MAC"), symbols(index.search("chin", null, 0, 10)));
+  }
+
+  @Test
+  void shortQueriesMatchWordPrefixes() {
+    assertEquals(List.of("ACM", "TCH"), symbols(index.search("a", null, 0,
+                                                              10)));
+    assertEquals(List.of("ZZZ"), symbols(index.search("sl", null, 0, 10)));
+  }
+
+  @Test
+  void filtersBySectorAndPages() {
+    assertEquals(List.of("ACM", "TCH"),
+                 symbols(index.search(null, "tech", 0, 10)));
+    assertEquals(List.of("MAC", "TCH"), symbols(index.search("", null, 1, 2)));
+    assertTrue(index.search("nothing", null, 0, 10).isEmpty());
+  }
+
+  private static List<String> symbols(List<StockRef> refs) {
+    return refs.stream().map(StockRef::getSymbol).toList();
+  }
+}
@@ -0,0 +1,43 @@
+package com.uiet.TradingApp.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBlacklistTest {
+
+  @Test
+  void revokedTokensAreFoundUntilTheirBucketExpires() {
+    TokenBlacklist blacklist = new TokenBlacklist(1_000L, 100, 0.01);
+    blacklist.add("short", 1_500L);
+    blacklist.add("long", 5_500L);
+
+    assertTrue(blacklist.contains("short", 1_000L));
+    assertTrue(blacklist.contains("long", 1_000L));
+    assertFalse(blacklist.contains("other", 1_000L));
+
+    assertEquals(1, blacklist.expire(2_000L));
+    assertFalse(blacklist.contains("short", 2_000L));
+    assertTrue(blacklist.contains("long", 2_000L));
+
+    blacklist.remove("long");
+    assertFalse(blacklist.contains("long", 2_000L));
+    assertEquals(0, blacklist.size());
+  }
+
+  @Test
+  void unrevokedTokensAreNeverReported() {
+    TokenBlacklist blacklist = new TokenBlacklist(60_000L, 1_000, 0.01);
+    for (int i = 0; i < 1_000; i++) {
+      blacklist.add("revoked-" + i, 30_000L);
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertFalse(blacklist.contains("live-" + i, 0L));
+    }
+    for (int i = 0; i < 1_000; i++) {
+      assertTrue(blacklist.contains("revoked-" + i, 0L));
+    }
+  }
+}